@@ -0,0 +1,694 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ Symbol Table implemented with a Left Leaning Red Black Tree stored in parallel arrays
+ Each node is an int id indexing keys, vals, left, right and meta, where meta packs the subtree size
+ with the color in its lowest bit, so there is no object per node. Id 0 stands for a null link
+ Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
+ */
+public class ArrayRBTSymbolTable<Key extends Comparable<Key>, Value> {
+    private static int init_capacity = 16;
+
+    //For Red-Black implementation
+    private static final int RED = 1;
+    private static final int BLACK = 0;
+
+    private static final int NIL = 0;
+
+    private Key[] keys;
+    private Value[] vals;
+    private int[] left;
+    private int[] right;
+    private int[] meta;    //size << 1 | color of the link from the parent to this node
+
+    private int root = NIL;
+    private int nextId = 1;      //Lowest id never handed out
+    private int freeList = NIL;  //Ids of deleted nodes, chained through left
+    private int compares = 0;
+    private int words = 0;
+
+    //Nodes visited by the current insertion and the direction taken from each, reused between calls
+    private int[] path = new int[64];
+    private boolean[] wentLeft = new boolean[64];
+
+    public ArrayRBTSymbolTable(int capacity) {
+        capacity = Math.max(capacity, 1) + 1;
+        keys = (Key[]) new Comparable[capacity];
+        vals = (Value[]) new Object[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        meta = new int[capacity];
+    }
+
+    public ArrayRBTSymbolTable() {
+        this(init_capacity);
+    }
+
+
+    /**********
+     * Node Storage Methods
+     **********/
+
+    //Hand out a free id for a new RED leaf, growing the arrays if every id is in use
+    private int newNode(Key key, Value val) {
+        int id;
+        if (freeList != NIL) {
+            id = freeList;
+            freeList = left[id];
+        } else {
+            if (nextId == keys.length) {
+                resize(2*keys.length);
+            }
+            id = nextId++;
+        }
+
+        keys[id] = key;
+        vals[id] = val;
+        left[id] = NIL;
+        right[id] = NIL;
+        meta[id] = 1 << 1 | RED;
+        return id;
+    }
+
+    //Return an id to the free list
+    private void freeNode(int id) {
+        keys[id] = null;
+        vals[id] = null;
+        left[id] = freeList;
+        freeList = id;
+    }
+
+    private void resize(int capacity) {
+        keys = Arrays.copyOf(keys, capacity);
+        vals = Arrays.copyOf(vals, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        meta = Arrays.copyOf(meta, capacity);
+    }
+
+    public int size(int x) {
+        return meta[x] >>> 1;
+    }
+
+    private void setSize(int x, int size) {
+        meta[x] = size << 1 | (meta[x] & 1);
+    }
+
+    private void setColor(int x, int color) {
+        meta[x] = (meta[x] & ~1) | color;
+    }
+
+    private int color(int x) {
+        return meta[x] & 1;
+    }
+
+    //Is this node Red? NIL has meta 0, so it is always black
+    private boolean isRed(int x) {
+        return (meta[x] & 1) == RED;
+    }
+
+
+    /**********
+     * Search/Retrieval Methods
+     **********/
+
+    //Return the value with the matching searchKey
+    public Value get(Key searchKey) {
+        int x = find(root, searchKey);
+        return x == NIL ? null : vals[x];
+    }
+
+    //Iteratively search the subtree rooted at current, returning the node id or NIL
+    private int find(int current, Key searchKey) {
+        while (true) {
+            compares++;
+
+            if (current == NIL) {
+                return NIL;
+            }
+
+            int cmp = searchKey.compareTo(keys[current]);
+
+            if (cmp < 0) {
+                current = left[current];
+            } else if (cmp > 0) {
+                current = right[current];
+            } else {
+                return current;
+            }
+        }
+    }
+
+    public boolean contains(Key searchKey) {
+        return get(searchKey) != null;
+    }
+
+    public Key min() {
+        if (isEmpty()) throw new NoSuchElementException("Red Black tree is empty");
+        return keys[min(root)];
+    }
+
+    private int min(int current) {
+        while (left[current] != NIL) {
+            current = left[current];
+        }
+        return current;
+    }
+
+    public Key max() {
+        if (isEmpty()) throw new NoSuchElementException("Red Black tree is empty");
+        int current = root;
+        while (right[current] != NIL) {
+            current = right[current];
+        }
+        return keys[current];
+    }
+
+    //Return the largest key <= searchKey, or null if there is none
+    public Key floor(Key searchKey) {
+        int floor = NIL;
+        int current = root;
+
+        while (current != NIL) {
+            int cmp = searchKey.compareTo(keys[current]);
+            if (cmp == 0) {
+                return keys[current];
+            } else if (cmp < 0) {
+                current = left[current];
+            } else {
+                floor = current;
+                current = right[current];
+            }
+        }
+        return floor == NIL ? null : keys[floor];
+    }
+
+    //Return the smallest key >= searchKey, or null if there is none
+    public Key ceiling(Key searchKey) {
+        int ceiling = NIL;
+        int current = root;
+
+        while (current != NIL) {
+            int cmp = searchKey.compareTo(keys[current]);
+            if (cmp == 0) {
+                return keys[current];
+            } else if (cmp > 0) {
+                current = right[current];
+            } else {
+                ceiling = current;
+                current = left[current];
+            }
+        }
+        return ceiling == NIL ? null : keys[ceiling];
+    }
+
+    //Find the key with rank N (meaning the key where exactly N other keys are smaller)
+    public Key select(int selectN) {
+        int current = root;
+
+        while (current != NIL) {
+            int t = size(left[current]);
+            if (t > selectN) {
+                current = left[current];
+            } else if (t < selectN) {
+                selectN -= t + 1;
+                current = right[current];
+            } else {
+                return keys[current];
+            }
+        }
+        return null;
+    }
+
+    //How many keys are < searchKey?
+    public int rank(Key searchKey) {
+        int rank = 0;
+        int current = root;
+
+        while (current != NIL) {
+            int cmp = searchKey.compareTo(keys[current]);
+            if (cmp < 0) {
+                current = left[current];
+            } else if (cmp > 0) {
+                rank += 1 + size(left[current]);
+                current = right[current];
+            } else {
+                return rank + size(left[current]);
+            }
+        }
+        return rank;
+    }
+
+
+    /**********
+     * Insertion Methods
+     **********/
+
+    public void put(Key key, Value newVal) {
+        words++;
+        int found = findOrInsert(key, newVal);
+        if (found != NIL) {
+            vals[found] = newVal;
+        }
+    }
+
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //Return the value the key holds afterwards, as Map.merge does
+    public Value merge(Key key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words++;
+        int found = findOrInsert(key, newVal);
+        if (found == NIL) {
+            return newVal;
+        }
+        return vals[found] = mergeFunction.apply(vals[found], newVal);
+    }
+
+    //Iteratively search for searchKey, returning its node if it exists
+    //Otherwise insert it as a new RED leaf, then walk back up the recorded path rotating and
+    //flipping colors to pass RED links up the chain, and return NIL
+    private int findOrInsert(Key searchKey, Value newVal) {
+        int depth = 0;
+        int current = root;
+
+        while (current != NIL) {
+            compares++;
+            int cmp = searchKey.compareTo(keys[current]);
+
+            if (cmp == 0) {
+                return current;
+            }
+
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, 2*depth);
+                wentLeft = Arrays.copyOf(wentLeft, 2*depth);
+            }
+            path[depth] = current;
+            wentLeft[depth] = cmp < 0;
+            depth++;
+
+            current = cmp < 0 ? left[current] : right[current];
+        }
+        compares++;
+
+        //Relink each parent to its rebalanced child, from the new leaf back up to the root
+        int child = newNode(searchKey, newVal);
+        for (int i = depth-1; i >= 0; i--) {
+            current = path[i];
+
+            if (wentLeft[i]) {
+                left[current] = child;
+            } else {
+                right[current] = child;
+            }
+
+            //Fix RED links
+            if (isRed(right[current]) && !isRed(left[current])) {
+                current = rotateLeft(current);
+            }
+            if (isRed(left[current]) && isRed(left[left[current]])) {
+                current = rotateRight(current);
+            }
+            if (isRed(left[current]) && isRed(right[current])) {
+                flipColors(current);
+            }
+
+            setSize(current, size(left[current]) + size(right[current]) + 1);
+            child = current;
+        }
+
+        root = child;
+        setColor(root, BLACK);
+        return NIL;
+    }
+
+
+    /**********
+     * Deletion Methods
+     **********/
+
+    public void deleteMin() {
+        if (isEmpty()) throw new NoSuchElementException("Red Black tree is empty");
+
+        //If both children of root are black, set root to red
+        if (!isRed(left[root]) && !isRed(right[root])) {
+            setColor(root, RED);
+        }
+
+        root = deleteMin(root);
+        if (!isEmpty()) {
+            setColor(root, BLACK);
+        }
+    }
+
+    private int deleteMin(int current) {
+        if (left[current] == NIL) {
+            freeNode(current);
+            return NIL;
+        }
+
+        if (!isRed(left[current]) && !isRed(left[left[current]])) {
+            current = moveRedLeft(current);
+        }
+
+        left[current] = deleteMin(left[current]);
+
+        return balance(current);
+    }
+
+    public void deleteMax() {
+        if (isEmpty()) throw new NoSuchElementException("Red Black tree is empty");
+
+        //If both children of root are black, set root to red
+        if (!isRed(left[root]) && !isRed(right[root])) {
+            setColor(root, RED);
+        }
+
+        root = deleteMax(root);
+        if (!isEmpty()) {
+            setColor(root, BLACK);
+        }
+    }
+
+    private int deleteMax(int current) {
+        if (isRed(left[current])) {
+            current = rotateRight(current);
+        }
+
+        if (right[current] == NIL) {
+            freeNode(current);
+            return NIL;
+        }
+
+        if (!isRed(right[current]) && !isRed(left[right[current]])) {
+            current = moveRedRight(current);
+        }
+
+        right[current] = deleteMax(right[current]);
+
+        return balance(current);
+    }
+
+    //Delete the passed in key, if it exists
+    public void delete(Key toDelete) {
+        if (!contains(toDelete)) {
+            return;
+        }
+
+        //If both children of root are black, set root to red
+        if (!isRed(left[root]) && !isRed(right[root])) {
+            setColor(root, RED);
+        }
+
+        root = delete(root, toDelete);
+        if (!isEmpty()) {
+            setColor(root, BLACK);
+        }
+    }
+
+    private int delete(int current, Key toDelete) {
+        if (toDelete.compareTo(keys[current]) < 0) {
+            //Move the red link down the left subtree, if needed
+            if (!isRed(left[current]) && !isRed(left[left[current]])) {
+                current = moveRedLeft(current);
+            }
+
+            left[current] = delete(left[current], toDelete);
+        } else {
+            //If the left link is red, rotate it to the right
+            if (isRed(left[current])) {
+                current = rotateRight(current);
+            }
+
+            //If the key matches and there's no right child, delete it
+            if (toDelete.compareTo(keys[current]) == 0 && right[current] == NIL) {
+                freeNode(current);
+                return NIL;
+            }
+
+            //Move the red link down to the right, if needed
+            if (!isRed(right[current]) && !isRed(left[right[current]])) {
+                current = moveRedRight(current);
+            }
+
+            //If the key matches, replace it with it's smallest successor, and then delete it's smallest successor
+            if (toDelete.compareTo(keys[current]) == 0) {
+                int successor = min(right[current]);
+                keys[current] = keys[successor];
+                vals[current] = vals[successor];
+                right[current] = deleteMin(right[current]);
+            } else {
+                right[current] = delete(right[current], toDelete);
+            }
+        }
+
+        return balance(current);
+    }
+
+
+    /**********
+     * General Utility Methods
+     **********/
+
+    //Pass every key and its value to action, in key order
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        InOrderIterator nodes = new InOrderIterator(null, null);
+        while (nodes.hasNext()) {
+            int x = nodes.nextNode();
+            action.accept(keys[x], vals[x]);
+        }
+    }
+
+    //Iterate over the keys in order, lazily
+    public Iterable<Key> keys() {
+        return keys(null, null);
+    }
+
+    //Iterate over the keys in [lo, hi] in order, lazily, where a null bound leaves that end open
+    public Iterable<Key> keys(Key lo, Key hi) {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                final InOrderIterator nodes = new InOrderIterator(lo, hi);
+                return new Iterator<Key>() {
+                    public boolean hasNext() {
+                        return nodes.hasNext();
+                    }
+
+                    public Key next() {
+                        return keys[nodes.nextNode()];
+                    }
+                };
+            }
+        };
+    }
+
+    //How many keys are in [lo, hi]?
+    public int size(Key lo, Key hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        } else if (contains(hi)) {
+            return rank(hi) - rank(lo) + 1;
+        } else {
+            return rank(hi) - rank(lo);
+        }
+    }
+
+    //In-order traversal with an explicit stack of node ids, optionally limited to [lo, hi]
+    private class InOrderIterator {
+        private int[] stack = new int[32];
+        private int depth = 0;
+        private final Key lo, hi;
+
+        InOrderIterator(Key lo, Key hi) {
+            this.lo = lo;
+            this.hi = hi;
+            pushLeft(root);
+        }
+
+        //Push the left spine, skipping over nodes that fall below lo
+        private void pushLeft(int current) {
+            while (current != NIL) {
+                if (lo != null && lo.compareTo(keys[current]) > 0) {
+                    current = right[current];
+                } else {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, 2*depth);
+                    }
+                    stack[depth++] = current;
+                    current = left[current];
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return depth > 0 && (hi == null || hi.compareTo(keys[stack[depth-1]]) >= 0);
+        }
+
+        int nextNode() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more keys");
+            }
+            int current = stack[--depth];
+            pushLeft(right[current]);
+            return current;
+        }
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public int compares() {
+        return compares;
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+
+    /**********
+     * Red-Black Helper Functions
+     **********/
+
+    //Make right-leaning link lean left
+    private int rotateLeft(int toRotate) {
+        int temp = right[toRotate];
+        right[toRotate] = left[temp];
+        left[temp] = toRotate;
+        setColor(temp, color(toRotate));
+        setColor(toRotate, RED);
+        setSize(temp, size(toRotate));
+        setSize(toRotate, 1 + size(left[toRotate]) + size(right[toRotate]));
+        return temp;
+    }
+
+    //Make left-leaning link lean right
+    private int rotateRight(int toRotate) {
+        int temp = left[toRotate];
+        left[toRotate] = right[temp];
+        right[temp] = toRotate;
+        setColor(temp, color(toRotate));
+        setColor(toRotate, RED);
+        setSize(temp, size(toRotate));
+        setSize(toRotate, 1 + size(left[toRotate]) + size(right[toRotate]));
+        return temp;
+    }
+
+    //Flip the colors of a node and its two children
+    private void flipColors(int toFlip) {
+        meta[toFlip] ^= 1;
+        meta[left[toFlip]] ^= 1;
+        meta[right[toFlip]] ^= 1;
+    }
+
+    //Assume that current is red and both current.left and current.left.left are black,
+    //make current.left or one of it's children red
+    private int moveRedLeft(int current) {
+        flipColors(current);
+
+        if (isRed(left[right[current]])) {
+            right[current] = rotateRight(right[current]);
+            current = rotateLeft(current);
+            flipColors(current);
+        }
+
+        return current;
+    }
+
+    //Assume that current is red and both current.right and current.right.left are black,
+    //make current.right or one of it's children red
+    private int moveRedRight(int current) {
+        flipColors(current);
+
+        if (isRed(left[left[current]])) {
+            current = rotateRight(current);
+            flipColors(current);
+        }
+
+        return current;
+    }
+
+    //Ensure red-black balance
+    private int balance(int current) {
+        if (isRed(right[current]) && !isRed(left[current])) {
+            current = rotateLeft(current);
+        }
+
+        if (isRed(left[current]) && isRed(left[left[current]])) {
+            current = rotateRight(current);
+        }
+
+        if (isRed(left[current]) && isRed(right[current])) {
+            flipColors(current);
+        }
+
+        setSize(current, size(left[current]) + size(right[current]) + 1);
+
+        return current;
+    }
+
+
+    /**********
+     * Test Client
+     **********/
+
+    public static void main(String[] args) {
+        ArrayRBTSymbolTable<Integer, String> testRBT = new ArrayRBTSymbolTable<Integer, String>(2);
+
+        try {
+            testRBT.deleteMin();
+        } catch (NoSuchElementException e) {
+            StdOut.println(e.getMessage());
+        }
+
+        testRBT.put(3, "Three");
+        testRBT.put(1, "One");
+        testRBT.put(2, "Two");
+        testRBT.put(4, "Four");
+        testRBT.put(1, "OneOne");
+        testRBT.put(10, "Ten");
+
+        for (Integer myInt : testRBT.keys()) {
+            StdOut.println(myInt + " " + testRBT.get(myInt));
+        }
+        StdOut.println("Size: " + testRBT.size());
+        StdOut.println();
+
+        testRBT.delete(3);
+        testRBT.deleteMin();
+        testRBT.deleteMax();
+
+        for (Integer myInt : testRBT.keys()) {
+            StdOut.println(myInt + " " + testRBT.get(myInt));
+        }
+        StdOut.println("Size: " + testRBT.size());
+        StdOut.println();
+
+        testRBT.put(3, "ThreeThree");
+        testRBT.put(1, "One");
+        testRBT.put(5, "Five");
+        testRBT.put(10, "Ten");
+
+        for (Integer myInt : testRBT.keys()) {
+            StdOut.println(myInt + " " + testRBT.get(myInt));
+        }
+        StdOut.println("Size: " + testRBT.size());
+        StdOut.println("Min: " + testRBT.min());
+        StdOut.println("Max: " + testRBT.max());
+        StdOut.println("Floor of 4: " + testRBT.floor(4));
+        StdOut.println("Ceiling of 4: " + testRBT.ceiling(4));
+        StdOut.println("Floor of 0: " + testRBT.floor(0));
+        StdOut.println("Ceiling of 11: " + testRBT.ceiling(11));
+        StdOut.println("Key at rank 3: " + testRBT.select(3));
+        StdOut.println("Rank of key 10: " + testRBT.rank(10));
+        StdOut.println("Number of keys between 2 and 7: " + testRBT.size(2, 7));
+    }
+}
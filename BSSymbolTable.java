@@ -1,5 +1,8 @@
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 /**
  Symbol Table implementation using ordered parallel arrays and binary search
@@ -14,16 +17,75 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
     private int compares = 0;
     private int words = 0;
 
+    //Write buffer for new keys, kept sorted and merged into the arrays in one pass when it fills up
+    //null unless the table was built with a buffer size
+    private RBTSymbolTable<Key, Value> buffer;
+    private int bufferSize;
 
-    public BSSymbolTable(int size) {
+    //How get, put, merge and rank find the position of a key
+    public enum Search {
+        BINARY,     //Plain binary search over the whole array
+        HINTED,     //Gallop outwards from the position found by the last search, then binary search
+        EYTZINGER   //Search a copy of the keys stored in breadth-first (Eytzinger) order, rebuilt after changes
+    }
+
+    private final Search search;
+    private int hint = 0;
+
+    //Eytzinger layout, 1-indexed: the children of slot k are 2k and 2k+1, and layoutRank maps a slot to its index in keys
+    private Key[] layoutKeys;
+    private int[] layoutRank;
+    private boolean layoutStale = true;
+
+
+    public BSSymbolTable(int size, Search search) {
         keys = (Key[])   new Comparable[size];
         vals = (Value[]) new Object[size];
+        this.search = search;
+    }
+
+    public BSSymbolTable(int size) {
+        this(size, Search.BINARY);
+    }
+
+    //Buffered mode: new keys go to a write buffer instead of shifting the arrays on every insert
+    //The buffer is merged in once it holds bufferSize keys, or half as many keys as the arrays if that is more,
+    //so each key is only moved a constant number of times on average
+    public BSSymbolTable(int size, int bufferSize) {
+        this(size);
+        this.buffer = new RBTSymbolTable<Key, Value>();
+        this.bufferSize = bufferSize;
     }
 
     public BSSymbolTable() {
         this(init_capacity);
     }
 
+    //Build the table directly from keys already in strictly ascending order and their values, in linear time
+    public BSSymbolTable(Key[] sortedKeys, Value[] sortedVals) {
+        this(sortedKeys, sortedVals, Search.BINARY);
+    }
+
+    public BSSymbolTable(Key[] sortedKeys, Value[] sortedVals, Search search) {
+        this(Math.max(sortedKeys.length, init_capacity), search);
+        checkSorted(sortedKeys, sortedVals);
+
+        System.arraycopy(sortedKeys, 0, keys, 0, sortedKeys.length);
+        System.arraycopy(sortedVals, 0, vals, 0, sortedVals.length);
+        size = sortedKeys.length;
+    }
+
+    static <Key extends Comparable<Key>> void checkSorted(Key[] sortedKeys, Object[] sortedVals) {
+        if (sortedKeys.length != sortedVals.length) {
+            throw new IllegalArgumentException("Keys and values must have the same length");
+        }
+        for (int i = 1; i < sortedKeys.length; i++) {
+            if (sortedKeys[i-1].compareTo(sortedKeys[i]) >= 0) {
+                throw new IllegalArgumentException("Keys must be in strictly ascending order");
+            }
+        }
+    }
+
     //resizing the array
     private void resize(int capacity) {
         Key[]   tempk = (Key[])   new Comparable[capacity];
@@ -36,41 +98,186 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
         keys = tempk;
     }
 
+    //Merge the write buffer into the arrays with a single pass over both, since both are in key order
+    private void flush() {
+        if (buffer == null || buffer.isEmpty()) {
+            return;
+        }
+
+        int total = size + buffer.size();
+        int capacity = keys.length;
+        while (capacity < total) {
+            capacity *= 2;
+        }
+        Key[]   tempk = (Key[])   new Comparable[capacity];
+        Value[] tempv = (Value[]) new Object[capacity];
+
+        //Buffered keys are never in the arrays, so there are no ties to resolve
+        int i = 0;
+        int j = 0;
+        for (Map.Entry<Key, Value> entry : buffer.entries()) {
+            while (i < size && keys[i].compareTo(entry.getKey()) < 0) {
+                tempk[j] = keys[i];
+                tempv[j++] = vals[i++];
+            }
+            tempk[j] = entry.getKey();
+            tempv[j++] = entry.getValue();
+        }
+        while (i < size) {
+            tempk[j] = keys[i];
+            tempv[j++] = vals[i++];
+        }
+
+        keys = tempk;
+        vals = tempv;
+        size = total;
+        layoutStale = true;
+        compares += buffer.compares();
+        buffer = new RBTSymbolTable<Key, Value>();
+    }
+
+    //Merge the write buffer in once it has grown past its limit
+    private void flushIfFull() {
+        if (buffer.size() >= Math.max(bufferSize, size/2)) {
+            flush();
+        }
+    }
+
     //Return the size of the Symbol Table
     public int size() {
+        if (buffer != null) {
+            return size + buffer.size();
+        }
         return size;
     }
 
     //Is the Symbol Table empty?
     boolean isEmpty() {
-        return size <= 0;
+        return size() <= 0;
     }
 
     //Returns the index of the key.
     //If the key is not in the array, it returns the number of keys that are smaller than it.
     //Uses Binary Search to find the proper place.
     public int rank (Key key) {
-        return rank(key, 0, size-1);
+        flush();
+        return find(key);
     }
 
+    //Binary search for the rank of key within keys[lo..hi]
     public int rank (Key key, int lo, int hi) {
+        while (true) {
+            compares++;
+            if (hi < lo) {
+                return lo;
+            }
+
+            int mid = lo + (hi - lo) /2;
+
+            int cmp = key.compareTo(keys[mid]);
+
+            if (cmp < 0) { //If key is in left half of array
+                hi = mid-1;
+            } else if (cmp > 0) { //If key is in right half of array
+                lo = mid+1;
+            } else {  //key is at mid
+                return mid;
+            }
+        }
+    }
+
+    //Rank of key among the keys in the arrays, using the search chosen at construction
+    private int find(Key key) {
+        if (search == Search.EYTZINGER) {
+            return eytzingerRank(key);
+        } else if (search == Search.HINTED && size > 0) {
+            hint = hintedRank(key, Math.min(hint, size-1));
+            return hint;
+        } else {
+            return rank(key, 0, size-1);
+        }
+    }
+
+    //Compare against keys[h] first, so a repeated key costs one compare,
+    //then gallop away from h in steps of 1, 2, 4, ... to bracket key and binary search the bracket
+    private int hintedRank(Key key, int h) {
         compares++;
-        if (hi < lo) {
-            return lo;
+        int cmp = key.compareTo(keys[h]);
+        if (cmp == 0) {
+            return h;
         }
 
-        int mid = lo + (hi - lo) /2;
+        int step = 1;
+        if (cmp > 0) {
+            int lo = h+1;
+            int probe = h+1;
+            while (probe < size) {
+                compares++;
+                cmp = key.compareTo(keys[probe]);
+                if (cmp == 0) {
+                    return probe;
+                } else if (cmp < 0) {
+                    break;
+                }
+                lo = probe+1;
+                step *= 2;
+                probe = step > size-h ? size : h+step;
+            }
+            return rank(key, lo, Math.min(probe, size)-1);
+        } else {
+            int hi = h-1;
+            int probe = h-1;
+            while (probe >= 0) {
+                compares++;
+                cmp = key.compareTo(keys[probe]);
+                if (cmp == 0) {
+                    return probe;
+                } else if (cmp > 0) {
+                    break;
+                }
+                hi = probe-1;
+                step *= 2;
+                probe = step > h ? -1 : h-step;
+            }
+            return rank(key, Math.max(probe, -1)+1, hi);
+        }
+    }
 
-        int cmp = key.compareTo(keys[mid]);
+    //Descend the Eytzinger layout always going to child 2k or 2k+1, with no early exit, so the loop
+    //has no unpredictable branch; the last slot where the path went left holds the first key >= key
+    private int eytzingerRank(Key key) {
+        if (layoutStale) {
+            buildLayout();
+        }
 
-        if (cmp < 0) { //If key is in left half of array
-            return rank(key, lo, mid-1);
-        } else if (cmp > 0) { //If key is in right half of array
-            return (rank(key, mid+1, hi));
-        } else {  //key is at mid
-            return mid;
+        int k = 1;
+        while (k <= size) {
+            compares++;
+            k = 2*k + (layoutKeys[k].compareTo(key) < 0 ? 1 : 0);
         }
+        k >>= Integer.numberOfTrailingZeros(~k) + 1;
+
+        return k == 0 ? size : layoutRank[k];
+    }
 
+    //Copy the sorted keys into breadth-first order
+    private void buildLayout() {
+        layoutKeys = (Key[]) new Comparable[size+1];
+        layoutRank = new int[size+1];
+        buildLayout(0, 1);
+        layoutStale = false;
+    }
+
+    //In-order walk of the implicit tree rooted at slot k, filling it from keys[i] onwards
+    //Returns the index of the next key to place
+    private int buildLayout(int i, int k) {
+        if (k <= size) {
+            i = buildLayout(i, 2*k);
+            layoutKeys[k] = keys[i];
+            layoutRank[k] = i++;
+            i = buildLayout(i, 2*k+1);
+        }
+        return i;
     }
 
     //Returns the value associated with the passed in key
@@ -80,10 +287,12 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
         }
 
         //Find the index of the key, if it is in the array
-        int i = rank(key);
+        int i = find(key);
 
         if (i < size && keys[i].compareTo(key) == 0) { //If the key exists, returns it's associated value
             return vals[i];
+        } else if (buffer != null) {
+            return buffer.get(key);
         } else {
             return null;
         }
@@ -94,7 +303,7 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
         words++;
 
         //The position where the key should be
-        int i = rank(newKey);
+        int i = find(newKey);
 
         //Key exists in array, update associated value
         if (i < size && keys[i].compareTo(newKey) == 0) {
@@ -102,6 +311,41 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
             return;
         }
 
+        if (buffer != null) {
+            buffer.put(newKey, newVal);
+            flushIfFull();
+            return;
+        }
+
+        insert(i, newKey, newVal);
+    }
+
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //Return the value the key holds afterwards, as Map.merge does
+    //Only runs a single binary search, unlike a contains/get/put sequence
+    public Value merge(Key newKey, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words++;
+
+        //The position where the key should be
+        int i = find(newKey);
+
+        //Key exists in array, merge with associated value
+        if (i < size && keys[i].compareTo(newKey) == 0) {
+            return vals[i] = mergeFunction.apply(vals[i], newVal);
+        }
+
+        if (buffer != null) {
+            Value merged = buffer.merge(newKey, newVal, mergeFunction);
+            flushIfFull();
+            return merged;
+        }
+
+        insert(i, newKey, newVal);
+        return newVal;
+    }
+
+    //Place a key known not to be in the array at position i
+    private void insert(int i, Key newKey, Value newVal) {
         //If you've reached current capacity, double the size of the array
         if (size == keys.length) {
             resize(2*keys.length);
@@ -115,6 +359,7 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
         keys[i] = newKey;
         vals[i] = newVal;
         size++;
+        layoutStale = true;
     }
 
     //Return true of toFind is in the array
@@ -124,6 +369,7 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
 
     //Return the key in rank toFind
     public Key select (int toFind) {
+        flush();
         if (toFind < 0 || toFind > size) {
             return null;
         } else {
@@ -133,6 +379,7 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
 
     //Return the minimum key
     public Key min() {
+        flush();
         if (isEmpty()) {
             throw new NoSuchElementException("Symbol Table is empty");
         }
@@ -141,6 +388,7 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
 
     //return the maximum key
     public Key max() {
+        flush();
         if (isEmpty()) {
             throw new NoSuchElementException("Symbol Table is empty");
         }
@@ -190,6 +438,7 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
             size--;
             keys[size] = null;
             vals[size] = null;
+            layoutStale = true;
         }
 
         //If array is 1/4th full, resize it
@@ -199,6 +448,7 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
     }
 
     public void deleteMin() {
+        flush();
         if (isEmpty()) {
             throw new NoSuchElementException("Symbol Table is empty");
         }
@@ -206,13 +456,23 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
     }
 
     public void deleteMax() {
+        flush();
         if (isEmpty()) {
             throw new NoSuchElementException("Symbol Table is empty");
         }
         delete(keys[size-1]);
     }
 
+    //Pass every key and its value to action, in key order
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        flush();
+        for (int i = 0; i < size; i++) {
+            action.accept(keys[i], vals[i]);
+        }
+    }
+
     public Iterable<Key> keys() {
+        flush();
         ArrayList<Key> forIterating = new ArrayList();
         for (int i = 0; i < size; i++) {
             forIterating.add(keys[i]);
@@ -220,8 +480,40 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
         return forIterating;
     }
 
+    //Return the keys in [lo, hi], found with two binary searches
+    public Iterable<Key> keys(Key lo, Key hi) {
+        flush();
+        ArrayList<Key> forIterating = new ArrayList();
+        if (lo.compareTo(hi) > 0) {
+            return forIterating;
+        }
+
+        int end = rank(hi);
+        if (end < size && keys[end].compareTo(hi) == 0) {
+            end++;
+        }
+        for (int i = rank(lo); i < end; i++) {
+            forIterating.add(keys[i]);
+        }
+        return forIterating;
+    }
+
+    //How many keys are in [lo, hi]?
+    public int size(Key lo, Key hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        } else if (contains(hi)) {
+            return rank(hi) - rank(lo) + 1;
+        } else {
+            return rank(hi) - rank(lo);
+        }
+    }
+
     public int compares() {
-       return compares;
+        if (buffer != null) {
+            return compares + buffer.compares();
+        }
+        return compares;
     }
 
     public int words() {
@@ -288,6 +580,16 @@ public class BSSymbolTable<Key extends Comparable<Key>, Value> {
         StdOut.println("Array contains 5: " + testBSST.contains(5));
         StdOut.println("Array contains 6: " + testBSST.contains(6));
         StdOut.println("Key at rank 3: " + testBSST.select(3));
+        StdOut.println("Keys between 2 and 4: " + testBSST.keys(2, 4));
+        StdOut.println("Number of keys between 2 and 4: " + testBSST.size(2, 4));
+        StdOut.println();
+
+        BSSymbolTable<Integer, String> bulkBSST = new BSSymbolTable<Integer, String>(
+            new Integer[] {1, 2, 3, 4, 5}, new String[] {"One", "Two", "Three", "Four", "Five"});
+        for (Integer myInt : bulkBSST.keys()) {
+            StdOut.println(myInt + " " + bulkBSST.get(myInt));
+        }
+        StdOut.println("Size: " + bulkBSST.size);
 
 
     }
@@ -1,6 +1,10 @@
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 /**
  Symbol Table implemented with a Binary Search Tree
@@ -11,9 +15,11 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
     private Node root;
     private int compares = 0;
     private int words = 0;
-    ArrayList<Key> forIterating = new ArrayList();
 
-    private class Node {
+    //Nodes visited by the current insertion, reused between calls
+    private Node[] path = (Node[]) new BSTSymbolTable.Node[64];
+
+    private class Node implements Map.Entry<Key, Value> {
         private Key key;
         private Value val;
         private Node left, right;
@@ -24,6 +30,20 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
             this.val = val;
             this.size = size;
         }
+
+        public Key getKey() {
+            return key;
+        }
+
+        public Value getValue() {
+            return val;
+        }
+
+        public Value setValue(Value newVal) {
+            Value oldVal = val;
+            val = newVal;
+            return oldVal;
+        }
     }
 
 
@@ -31,57 +51,56 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
      * Search/Retrieval Methods
      **********/
 
-    //Return the node with the matching searchKey
+    //Return the value with the matching searchKey
+    //Iterative, so a degenerate tree built from sorted input cannot overflow the stack
     public Value get(Key searchKey) {
-        return get(root, searchKey);
-    }
+        Node current = root;
 
-    public Value get(Node current, Key searchKey) {
-        compares++;
+        while (true) {
+            compares++;
 
-        if (current == null) {
-            return null;
-        }
+            if (current == null) {
+                return null;
+            }
 
-        int cmp = searchKey.compareTo(current.key);
+            int cmp = searchKey.compareTo(current.key);
 
-        //Use compare value to traverse through tree
-        if (cmp < 0) {
-            return get(current.left, searchKey);
-        } else if (cmp > 0) {
-            return get(current.right, searchKey);
-        } else {
-            return current.val;
+            //Use compare value to traverse through tree
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                return current.val;
+            }
         }
     }
 
-    //Recursively traverse as far left as you can, retrieve smallest key
+    //Travel as far left as you can, retrieve smallest key
     public Node min() {
         return min(root);
     }
 
     public Node min(Node current) {
-        if (current.left == null) {
-            return current;
-        } else {
-            return min(current.left);
+        while (current.left != null) {
+            current = current.left;
         }
+        return current;
     }
 
-    //Recursively travel as far right as you can, retrieve largest key
+    //Travel as far right as you can, retrieve largest key
     public Node max() {
         return max(root);
     }
 
     public Node max(Node current) {
-        if (current.right == null) {
-            return current;
-        } else {
-            return max(current.right);
+        while (current.right != null) {
+            current = current.right;
         }
+        return current;
     }
 
-    //Recursively traverse until you find the largest key that is <= the search key
+    //Find the largest key that is <= the search key
     public Key floor(Key searchKey) {
         Node floor = floor(root, searchKey);
         if (floor == null) {
@@ -91,28 +110,26 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
         }
     }
 
+    //Iterative, remembering the last node passed on the way right, as that is the best floor so far
     public Node floor(Node current, Key searchKey) {
-        if (current == null) {
-            return null;
-        }
+        Node floor = null;
 
-        int cmp = searchKey.compareTo(current.key);
+        while (current != null) {
+            int cmp = searchKey.compareTo(current.key);
 
-        if (cmp == 0) {
-            return current;
-        } else if (cmp < 0) {
-            return floor(current.left, searchKey);
-        }
-
-        Node floor = floor(current.right, searchKey);
-        if (floor != null) {
-            return floor;
-        } else {
-            return current;
+            if (cmp == 0) {
+                return current;
+            } else if (cmp < 0) {
+                current = current.left;
+            } else {
+                floor = current;
+                current = current.right;
+            }
         }
+        return floor;
     }
 
-    //Recursively traverse until you find the smallest key that is >= the search key
+    //Find the smallest key that is >= the search key
     public Key ceiling(Key searchKey) {
         Node ceiling = ceiling(root, searchKey);
         if (ceiling == null) {
@@ -122,25 +139,23 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
         }
     }
 
+    //Iterative, remembering the last node passed on the way left, as that is the best ceiling so far
     public Node ceiling(Node current, Key searchKey) {
-        if (current == null) {
-            return null;
-        }
-
-        int cmp = searchKey.compareTo(current.key);
+        Node ceiling = null;
 
-        if (cmp == 0) {
-            return current;
-        } else if (cmp > 0) {
-            return ceiling(current.right, searchKey);
-        }
+        while (current != null) {
+            int cmp = searchKey.compareTo(current.key);
 
-        Node ceiling = ceiling(current.left, searchKey);
-        if (ceiling != null) {
-            return ceiling;
-        } else {
-            return current;
+            if (cmp == 0) {
+                return current;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                ceiling = current;
+                current = current.left;
+            }
         }
+        return ceiling;
     }
 
     //Find the key with rank N (meaning the key where exactly N other keys are smaller)
@@ -149,19 +164,19 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
     }
 
     public Node select(Node current, int selectN) {
-        if (current == null) {
-            return null;
-        }
-
-        int t = size(current.left);
-
-        if (t > selectN) {
-            return select(current.left, selectN);
-        } else if ( t < selectN) {
-            return select(current.right, selectN-t-1);
-        } else  {
-            return current;
+        while (current != null) {
+            int t = size(current.left);
+
+            if (t > selectN) {
+                current = current.left;
+            } else if (t < selectN) {
+                current = current.right;
+                selectN = selectN - t - 1;
+            } else {
+                return current;
+            }
         }
+        return null;
     }
 
     //How many keys are < searchKey?
@@ -169,20 +184,23 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
         return rank(searchKey, root);
     }
 
+    //Iterative, adding up the keys left behind each time the search goes right
     public int rank (Key searchKey, Node current) {
-        if (current == null) {
-            return 0;
-        }
+        int rank = 0;
 
-        int cmp = searchKey.compareTo(current.key);
+        while (current != null) {
+            int cmp = searchKey.compareTo(current.key);
 
-        if (cmp < 0) {
-            return rank(searchKey, current.left);
-        } else if (cmp > 0) {
-            return 1 + size(current.left) + rank(searchKey, current.right);
-        } else {
-            return size(current.left);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                rank += 1 + size(current.left);
+                current = current.right;
+            } else {
+                return rank + size(current.left);
+            }
         }
+        return rank;
     }
 
     //Does the tree contain this searchKey?
@@ -195,34 +213,71 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
      * Insertion Methods
      **********/
 
-    //Put works by recursively either creating a new node if needed, or assigning each node to itself
+    //Put either updates the value of an existing node or hangs a new node off the bottom of the tree
     public void put(Key key, Value newVal) {
         words++;
-        root = put(root, key, newVal);
+        Node found = findOrInsert(key, newVal);
+        if (found != null) {
+            found.val = newVal;
+        }
     }
 
-    public Node put(Node current, Key searchKey, Value newVal) {
-        compares++;
-
-        //Search to see if searchKey exists in BST, if not add it
-        if (current == null) {
-            return new Node(searchKey, newVal, 1);
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //Return the value the key holds afterwards, as Map.merge does
+    //Only descends the tree once, unlike a contains/get/put sequence
+    public Value merge(Key key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words++;
+        Node found = findOrInsert(key, newVal);
+        if (found == null) {
+            return newVal;
         }
+        return found.val = mergeFunction.apply(found.val, newVal);
+    }
 
-        int cmp = searchKey.compareTo(current.key);
+    //Iteratively search for searchKey, returning its node if it exists
+    //Otherwise insert it as a new leaf, add one to the size of every node on the path, and return null
+    private Node findOrInsert(Key searchKey, Value newVal) {
+        int depth = 0;
+        Node parent = null;
+        Node current = root;
+        int cmp = 0;
 
-        //Use compare value to traverse through tree
-        if (cmp < 0) {
-            current.left = put(current.left, searchKey, newVal);
-        } else if (cmp > 0) {
-            current.right = put(current.right, searchKey, newVal);
-        } else {
-            current.val = newVal;
+        while (current != null) {
+            compares++;
+            cmp = searchKey.compareTo(current.key);
+
+            if (cmp == 0) {
+                return current;
+            }
+
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, 2*depth);
+            }
+            path[depth++] = current;
+
+            parent = current;
+            if (cmp < 0) {
+                current = current.left;
+            } else {
+                current = current.right;
+            }
         }
-        current.size = size(current.left) + size(current.right) +1;
+        compares++;
 
-        return current;
+        Node newNode = new Node(searchKey, newVal, 1);
+        if (parent == null) {
+            root = newNode;
+        } else if (cmp < 0) {
+            parent.left = newNode;
+        } else {
+            parent.right = newNode;
+        }
 
+        for (int i = 0; i < depth; i++) {
+            path[i].size++;
+            path[i] = null;
+        }
+        return null;
     }
 
 
@@ -302,27 +357,116 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
      * General Utility Methods
      **********/
 
+    //Pass every key and its value to action, in key order
+    //Walks the tree with an explicit stack, so no list of keys is built
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        ArrayDeque<Node> stack = new ArrayDeque<Node>();
+        Node current = root;
+
+        while (current != null || !stack.isEmpty()) {
+            while (current != null) {
+                stack.push(current);
+                current = current.left;
+            }
+            current = stack.pop();
+            action.accept(current.key, current.val);
+            current = current.right;
+        }
+    }
+
+    //Iterate over the keys in order, lazily, holding only the path to the next key
     public Iterable<Key> keys() {
-        forIterating = new ArrayList();
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                return new InOrderIterator<Key>() {
+                    public Key next() {
+                        return nextNode().key;
+                    }
+                };
+            }
+        };
+    }
+
+    //Iterate over the keys in [lo, hi] in order, lazily
+    //Only the nodes inside the range and the paths down to its ends are visited
+    public Iterable<Key> keys(Key lo, Key hi) {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                return new InOrderIterator<Key>(lo, hi) {
+                    public Key next() {
+                        return nextNode().key;
+                    }
+                };
+            }
+        };
+    }
 
-        inOrder(root);
+    //How many keys are in [lo, hi]? Computed from rank, so it never visits the keys in between
+    public int size(Key lo, Key hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        } else if (contains(hi)) {
+            return rank(hi) - rank(lo) + 1;
+        } else {
+            return rank(hi) - rank(lo);
+        }
+    }
 
-        return forIterating;
+    //Iterate over the key-value pairs in order, lazily
+    //Each entry is the tree node itself, so no entry objects are allocated
+    public Iterable<Map.Entry<Key, Value>> entries() {
+        return new Iterable<Map.Entry<Key, Value>>() {
+            public Iterator<Map.Entry<Key, Value>> iterator() {
+                return new InOrderIterator<Map.Entry<Key, Value>>() {
+                    public Map.Entry<Key, Value> next() {
+                        return nextNode();
+                    }
+                };
+            }
+        };
     }
 
-    private Key inOrder (Node current) {
-        if(current.left != null) {
-            inOrder(current.left);
+    //In-order traversal driven by an explicit stack of the left spine still to visit
+    //Every iterator has its own stack, so any number of iterations can run at once
+    //Optionally limited to [lo, hi], where a null bound leaves that end open
+    private abstract class InOrderIterator<Item> implements Iterator<Item> {
+        private final ArrayDeque<Node> stack = new ArrayDeque<Node>();
+        private final Key lo, hi;
+
+        InOrderIterator() {
+            this(null, null);
         }
 
-        forIterating.add(current.key);
+        InOrderIterator(Key lo, Key hi) {
+            this.lo = lo;
+            this.hi = hi;
+            pushLeft(root);
+        }
 
-        if (current.right != null) {
-            inOrder(current.right);
+        //Push the left spine, skipping over nodes that fall below lo
+        private void pushLeft(Node current) {
+            while (current != null) {
+                if (lo != null && lo.compareTo(current.key) > 0) {
+                    current = current.right;
+                } else {
+                    stack.push(current);
+                    current = current.left;
+                }
+            }
         }
 
+        public boolean hasNext() {
+            return !stack.isEmpty() && (hi == null || hi.compareTo(stack.peek().key) >= 0);
+        }
 
-        return current.key;
+        Node nextNode() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more keys");
+            }
+            Node current = stack.pop();
+            pushLeft(current.right);
+            return current;
+        }
     }
 
     public int size() {
@@ -364,6 +508,10 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
             StdOut.println(e.getMessage());
         }
 
+        for (Integer myInt : testBSTST.keys()) {
+            StdOut.println("Empty tree has key " + myInt);
+        }
+
 
         testBSTST.put(3, "Three");
         testBSTST.put(1, "One");
@@ -421,6 +569,17 @@ public class BSTSymbolTable<Key extends Comparable<Key>, Value> {
         StdOut.println("Key at rank 5: " + testBSTST.select(5));
         StdOut.println("Rank of key 3: " + testBSTST.rank(3));
         StdOut.println("Rank of key 10: " + testBSTST.rank(10));
+        StdOut.print("Keys between 2 and 7:");
+        for (Integer myInt : testBSTST.keys(2, 7)) {
+            StdOut.print(" " + myInt);
+        }
+        StdOut.println();
+        StdOut.println("Number of keys between 2 and 7: " + testBSTST.size(2, 7));
+        StdOut.println();
+
+        for (Map.Entry<Integer, String> entry : testBSTST.entries()) {
+            StdOut.println(entry.getKey() + " " + entry.getValue());
+        }
 
 
     }
@@ -0,0 +1,458 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ Ordered Symbol Table implemented as a B+ tree with a configurable fan-out
+ Every key and value lives in a leaf, and the leaves are chained left to right for sequential scans.
+ Internal nodes hold the smallest key of each child and the number of keys under it, so a lookup
+ binary searches one wide node per level instead of following one pointer per binary comparison
+ Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
+ */
+public class BTreeSymbolTable<Key extends Comparable<Key>, Value> {
+    private static int default_fanout = 32;
+
+    private final int fanOut;    //Maximum number of entries per node, a full node is split in two
+    private Node root;
+    private int height = 0;
+    private int size = 0;
+    private int compares = 0;
+    private int words = 0;
+
+    //Set by insert when the key was not already in the tree, and to the value the key ends up with
+    private boolean added;
+    private Value merged;
+
+    //A leaf has vals and a link to the next leaf, an internal node has children and their sizes
+    private class Node {
+        private Key[] keys;
+        private Value[] vals;
+        private Node[] children;
+        private int[] sizes;
+        private Node next;
+        private int n = 0;
+
+        private Node(boolean leaf) {
+            keys = (Key[]) new Comparable[fanOut];
+            if (leaf) {
+                vals = (Value[]) new Object[fanOut];
+            } else {
+                children = (Node[]) new BTreeSymbolTable.Node[fanOut];
+                sizes = new int[fanOut];
+            }
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+
+        //Number of keys in the subtree rooted at this node
+        private int subtreeSize() {
+            if (isLeaf()) {
+                return n;
+            }
+            int total = 0;
+            for (int i = 0; i < n; i++) {
+                total += sizes[i];
+            }
+            return total;
+        }
+    }
+
+    public BTreeSymbolTable(int fanOut) {
+        if (fanOut < 4) {
+            throw new IllegalArgumentException("Fan-out must be at least 4");
+        }
+        this.fanOut = fanOut;
+        root = new Node(true);
+    }
+
+    public BTreeSymbolTable() {
+        this(default_fanout);
+    }
+
+
+    /**********
+     * Node Search Methods
+     **********/
+
+    //How many keys in the node are < searchKey?
+    private int rank(Node h, Key searchKey) {
+        int lo = 0;
+        int hi = h.n - 1;
+        while (lo <= hi) {
+            compares++;
+            int mid = lo + (hi - lo) / 2;
+            int cmp = searchKey.compareTo(h.keys[mid]);
+            if (cmp < 0) {
+                hi = mid - 1;
+            } else if (cmp > 0) {
+                lo = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return lo;
+    }
+
+    //Index of the child of an internal node whose keys could include searchKey, which is
+    //the last child starting at or before searchKey, or the first child if there is none
+    private int child(Node h, Key searchKey) {
+        int i = rank(h, searchKey);
+        if (i < h.n && searchKey.compareTo(h.keys[i]) == 0) {
+            return i;
+        }
+        return Math.max(i - 1, 0);
+    }
+
+    //Descend to the leaf whose keys could include searchKey
+    private Node leaf(Key searchKey) {
+        Node current = root;
+        while (!current.isLeaf()) {
+            current = current.children[child(current, searchKey)];
+        }
+        return current;
+    }
+
+
+    /**********
+     * Search/Retrieval Methods
+     **********/
+
+    //Return the value with the matching searchKey
+    public Value get(Key searchKey) {
+        Node leaf = leaf(searchKey);
+        int i = rank(leaf, searchKey);
+        if (i < leaf.n && searchKey.compareTo(leaf.keys[i]) == 0) {
+            return leaf.vals[i];
+        }
+        return null;
+    }
+
+    public boolean contains(Key searchKey) {
+        return get(searchKey) != null;
+    }
+
+    public Key min() {
+        if (isEmpty()) throw new NoSuchElementException("B-tree is empty");
+        return firstLeaf().keys[0];
+    }
+
+    public Key max() {
+        if (isEmpty()) throw new NoSuchElementException("B-tree is empty");
+        Node current = root;
+        while (!current.isLeaf()) {
+            current = current.children[current.n - 1];
+        }
+        return current.keys[current.n - 1];
+    }
+
+    private Node firstLeaf() {
+        Node current = root;
+        while (!current.isLeaf()) {
+            current = current.children[0];
+        }
+        return current;
+    }
+
+    //Return the largest key <= searchKey, or null if there is none
+    //The leaf found for searchKey starts at or before it unless searchKey is below the minimum
+    public Key floor(Key searchKey) {
+        Node leaf = leaf(searchKey);
+        int i = rank(leaf, searchKey);
+        if (i < leaf.n && searchKey.compareTo(leaf.keys[i]) == 0) {
+            return leaf.keys[i];
+        }
+        return i > 0 ? leaf.keys[i - 1] : null;
+    }
+
+    //Return the smallest key >= searchKey, or null if there is none
+    //If every key in the leaf found for searchKey is smaller, the answer starts the next leaf
+    public Key ceiling(Key searchKey) {
+        Node leaf = leaf(searchKey);
+        int i = rank(leaf, searchKey);
+        if (i < leaf.n) {
+            return leaf.keys[i];
+        }
+        return leaf.next == null ? null : leaf.next.keys[0];
+    }
+
+    //Find the key with rank N (meaning the key where exactly N other keys are smaller)
+    public Key select(int selectN) {
+        if (selectN < 0 || selectN >= size) {
+            return null;
+        }
+
+        Node current = root;
+        while (!current.isLeaf()) {
+            int i = 0;
+            while (selectN >= current.sizes[i]) {
+                selectN -= current.sizes[i];
+                i++;
+            }
+            current = current.children[i];
+        }
+        return current.keys[selectN];
+    }
+
+    //How many keys are < searchKey?
+    public int rank(Key searchKey) {
+        int rank = 0;
+        Node current = root;
+        while (!current.isLeaf()) {
+            int i = child(current, searchKey);
+            for (int j = 0; j < i; j++) {
+                rank += current.sizes[j];
+            }
+            current = current.children[i];
+        }
+        return rank + rank(current, searchKey);
+    }
+
+
+    /**********
+     * Insertion Methods
+     **********/
+
+    public void put(Key key, Value newVal) {
+        merge(key, newVal, null);
+    }
+
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //A null mergeFunction replaces the value, as put does. Return the value the key holds afterwards
+    public Value merge(Key key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words++;
+        added = false;
+        Node sibling = insert(root, key, newVal, mergeFunction);
+        if (added) {
+            size++;
+        }
+
+        //Splitting the root adds a level
+        if (sibling != null) {
+            Node newRoot = new Node(false);
+            newRoot.keys[0] = root.keys[0];
+            newRoot.children[0] = root;
+            newRoot.sizes[0] = root.subtreeSize();
+            newRoot.keys[1] = sibling.keys[0];
+            newRoot.children[1] = sibling;
+            newRoot.sizes[1] = sibling.subtreeSize();
+            newRoot.n = 2;
+            root = newRoot;
+            height++;
+        }
+        return merged;
+    }
+
+    //Insert into the subtree rooted at h, returning the new right half if h had to be split
+    private Node insert(Node h, Key key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        int i;
+        if (h.isLeaf()) {
+            i = rank(h, key);
+            if (i < h.n && key.compareTo(h.keys[i]) == 0) {
+                h.vals[i] = merged = mergeFunction == null ? newVal : mergeFunction.apply(h.vals[i], newVal);
+                return null;
+            }
+
+            System.arraycopy(h.keys, i, h.keys, i + 1, h.n - i);
+            System.arraycopy(h.vals, i, h.vals, i + 1, h.n - i);
+            h.keys[i] = key;
+            h.vals[i] = merged = newVal;
+            h.n++;
+            added = true;
+        } else {
+            i = child(h, key);
+            Node child = h.children[i];
+            Node sibling = insert(child, key, newVal, mergeFunction);
+
+            //The key may be a new minimum for the child
+            h.keys[i] = child.keys[0];
+            if (added) {
+                h.sizes[i]++;
+            }
+            if (sibling == null) {
+                return null;
+            }
+
+            System.arraycopy(h.keys, i + 1, h.keys, i + 2, h.n - i - 1);
+            System.arraycopy(h.children, i + 1, h.children, i + 2, h.n - i - 1);
+            System.arraycopy(h.sizes, i + 1, h.sizes, i + 2, h.n - i - 1);
+            h.keys[i + 1] = sibling.keys[0];
+            h.children[i + 1] = sibling;
+            h.sizes[i] = child.subtreeSize();
+            h.sizes[i + 1] = sibling.subtreeSize();
+            h.n++;
+        }
+
+        return h.n == fanOut ? split(h) : null;
+    }
+
+    //Move the upper half of a full node into a new node and return it
+    private Node split(Node h) {
+        int half = fanOut / 2;
+        Node t = new Node(h.isLeaf());
+        t.n = fanOut - half;
+        System.arraycopy(h.keys, half, t.keys, 0, t.n);
+        Arrays.fill(h.keys, half, fanOut, null);
+
+        if (h.isLeaf()) {
+            System.arraycopy(h.vals, half, t.vals, 0, t.n);
+            Arrays.fill(h.vals, half, fanOut, null);
+            t.next = h.next;
+            h.next = t;
+        } else {
+            System.arraycopy(h.children, half, t.children, 0, t.n);
+            System.arraycopy(h.sizes, half, t.sizes, 0, t.n);
+            Arrays.fill(h.children, half, fanOut, null);
+        }
+
+        h.n = half;
+        return t;
+    }
+
+
+    /**********
+     * General Utility Methods
+     **********/
+
+    //Pass every key and its value to action, in key order, by walking the chain of leaves
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        for (Node leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.n; i++) {
+                action.accept(leaf.keys[i], leaf.vals[i]);
+            }
+        }
+    }
+
+    //Iterate over the keys in order, lazily
+    public Iterable<Key> keys() {
+        return keys(null, null);
+    }
+
+    //Iterate over the keys in [lo, hi] in order, lazily, where a null bound leaves that end open
+    public Iterable<Key> keys(Key lo, Key hi) {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                return new LeafIterator(lo, hi);
+            }
+        };
+    }
+
+    //How many keys are in [lo, hi]?
+    public int size(Key lo, Key hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        } else if (contains(hi)) {
+            return rank(hi) - rank(lo) + 1;
+        } else {
+            return rank(hi) - rank(lo);
+        }
+    }
+
+    //Scan the chain of leaves from the first key >= lo until a key passes hi
+    private class LeafIterator implements Iterator<Key> {
+        private Node leaf;
+        private int i;
+        private final Key hi;
+
+        LeafIterator(Key lo, Key hi) {
+            this.hi = hi;
+            if (lo == null) {
+                leaf = firstLeaf();
+                i = 0;
+            } else {
+                leaf = leaf(lo);
+                i = rank(leaf, lo);
+            }
+            skipEmpty();
+        }
+
+        //Step onto the next leaf once this one is used up
+        private void skipEmpty() {
+            while (leaf != null && i == leaf.n) {
+                leaf = leaf.next;
+                i = 0;
+            }
+        }
+
+        public boolean hasNext() {
+            return leaf != null && (hi == null || hi.compareTo(leaf.keys[i]) >= 0);
+        }
+
+        public Key next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more keys");
+            }
+            Key key = leaf.keys[i++];
+            skipEmpty();
+            return key;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int compares() {
+        return compares;
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    /**********
+     * Test Client
+     **********/
+
+    public static void main(String[] args) {
+        BTreeSymbolTable<Integer, String> testBTree = new BTreeSymbolTable<Integer, String>(4);
+
+        for (Integer myInt : testBTree.keys()) {
+            StdOut.println(myInt);
+        }
+        StdOut.println("Empty: " + testBTree.isEmpty());
+
+        testBTree.put(3, "Three");
+        testBTree.put(1, "One");
+        testBTree.put(2, "Two");
+        testBTree.put(4, "Four");
+        testBTree.put(1, "OneOne");
+        testBTree.put(10, "Ten");
+        testBTree.put(5, "Five");
+        testBTree.put(8, "Eight");
+        testBTree.merge(5, "Five", String::concat);
+
+        for (Integer myInt : testBTree.keys()) {
+            StdOut.println(myInt + " " + testBTree.get(myInt));
+        }
+        StdOut.println("Size: " + testBTree.size());
+        StdOut.println("Height: " + testBTree.height());
+        StdOut.println("Min: " + testBTree.min());
+        StdOut.println("Max: " + testBTree.max());
+        StdOut.println("Floor of 7: " + testBTree.floor(7));
+        StdOut.println("Ceiling of 7: " + testBTree.ceiling(7));
+        StdOut.println("Floor of 0: " + testBTree.floor(0));
+        StdOut.println("Ceiling of 11: " + testBTree.ceiling(11));
+        StdOut.println("Key at rank 3: " + testBTree.select(3));
+        StdOut.println("Rank of key 10: " + testBTree.rank(10));
+        StdOut.println("Number of keys between 2 and 7: " + testBTree.size(2, 7));
+
+        StdOut.print("Keys between 2 and 7:");
+        for (Integer myInt : testBTree.keys(2, 7)) {
+            StdOut.print(" " + myInt);
+        }
+        StdOut.println();
+    }
+}
@@ -0,0 +1,249 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ Counting Symbol Table keyed by the UTF-8 bytes of each word
+ Each distinct word is copied once into a single growing byte arena and is known by its offset and
+ length there. Tokens are hashed and compared byte by byte against the arena straight from the
+ input buffer, so counting a repeated word allocates nothing, and a String is only built for output
+ Entries are numbered in order of insertion. A linear probing table of entry numbers finds them, with
+ the hash of every entry cached so most mismatches are rejected without comparing bytes
+ */
+public class ByteArenaCountST {
+    private static int init_capacity = 16;
+
+    //Largest array most JVMs will allocate
+    private static final int MAX_ARENA = Integer.MAX_VALUE - 8;
+
+    private byte[] arena = new byte[1024];
+    private int arenaSize = 0;
+
+    //Indexed by entry number
+    private int[] offsets;
+    private int[] lengths;
+    private int[] hashes;
+    private int[] counts;
+
+    //Linear probing table of entry number + 1, where 0 marks an empty slot
+    private int[] table;
+
+    private int size = 0;
+    private int compares = 0;
+    private int words = 0;
+
+    public ByteArenaCountST(int capacity) {
+        //Round up to a power of two so the hash can be reduced with a mask
+        int tableSize = init_capacity;
+        while (tableSize < 2*capacity) {
+            tableSize *= 2;
+        }
+        table = new int[tableSize];
+        offsets = new int[tableSize/2];
+        lengths = new int[tableSize/2];
+        hashes = new int[tableSize/2];
+        counts = new int[tableSize/2];
+    }
+
+    public ByteArenaCountST() {
+        this(init_capacity/2);
+    }
+
+    //Hash the bytes in [start, start+length) with the same polynomial String uses for its characters,
+    //so it only equals String.hashCode for ASCII words
+    private static int hash(ByteBuffer bytes, int start, int length) {
+        int h = 0;
+        for (int i = start; i < start + length; i++) {
+            h = 31*h + bytes.get(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    //Do the bytes in [start, start+length) match the word of entry e?
+    private boolean matches(int e, ByteBuffer bytes, int start, int length) {
+        if (lengths[e] != length) {
+            return false;
+        }
+        int offset = offsets[e];
+        for (int i = 0; i < length; i++) {
+            if (arena[offset + i] != bytes.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Return the slot holding the word in [start, start+length), or the empty slot where it belongs
+    private int slot(ByteBuffer bytes, int start, int length, int h) {
+        int mask = table.length - 1;
+        int i = h & mask;
+        for (; table[i] != 0; i = (i + 1) & mask) {
+            compares++;
+            int e = table[i] - 1;
+            if (hashes[e] == h && matches(e, bytes, start, length)) {
+                return i;
+            }
+        }
+        return i;
+    }
+
+    //Double the probing table, reinserting entry numbers by their cached hashes
+    private void resize(int capacity) {
+        table = new int[capacity];
+        for (int e = 0; e < size; e++) {
+            int i = hashes[e] & (capacity - 1);
+            while (table[i] != 0) {
+                i = (i + 1) & (capacity - 1);
+            }
+            table[i] = e + 1;
+        }
+
+        offsets = Arrays.copyOf(offsets, capacity/2);
+        lengths = Arrays.copyOf(lengths, capacity/2);
+        hashes = Arrays.copyOf(hashes, capacity/2);
+        counts = Arrays.copyOf(counts, capacity/2);
+    }
+
+    //Grow the arena to hold at least needed bytes, doubling it where that still fits in an array
+    private void growArena(long needed) {
+        if (needed > MAX_ARENA) {
+            throw new IllegalStateException("Byte arena is full: " + arenaSize + " bytes of words");
+        }
+        arena = Arrays.copyOf(arena, (int) Math.min(MAX_ARENA, Math.max(2L*arena.length, needed)));
+    }
+
+    //Return the entry number of the UTF-8 word in bytes [start, start+length), copying it into the arena
+    //with a count of 0 if it has not been seen before
+    private int entry(ByteBuffer bytes, int start, int length) {
+        //Keep the table at most half full so probe sequences stay short
+        if (2*(size+1) > table.length) {
+            resize(2*table.length);
+        }
+
+        int h = hash(bytes, start, length);
+        int i = slot(bytes, start, length, h);
+        if (table[i] != 0) {
+            return table[i] - 1;
+        }
+
+        if (arenaSize + length > arena.length) {
+            growArena((long) arenaSize + length);
+        }
+        bytes.get(start, arena, arenaSize, length);
+
+        int e = size++;
+        offsets[e] = arenaSize;
+        lengths[e] = length;
+        hashes[e] = h;
+        counts[e] = 0;
+        table[i] = e + 1;
+        arenaSize += length;
+        return e;
+    }
+
+    //Return the slot holding the key, or the empty slot where it belongs
+    private int slot(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+        return slot(wrapped, 0, bytes.length, hash(wrapped, 0, bytes.length));
+    }
+
+    //Add amount to the count of the UTF-8 word in bytes [start, start+length), copying it into
+    //the arena only if it has not been seen before, and return the new count
+    public int increment(ByteBuffer bytes, int start, int length, int amount) {
+        words++;
+        int e = entry(bytes, start, length);
+        return counts[e] += amount;
+    }
+
+    //Add amount to the count of the key, inserting it if needed, and return the new count
+    public int increment(String key, int amount) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        return increment(ByteBuffer.wrap(bytes), 0, bytes.length, amount);
+    }
+
+    public int increment(String key) {
+        return increment(key, 1);
+    }
+
+    //Replace the count of the key, inserting it if needed
+    public void put(String key, int count) {
+        words++;
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int e = entry(ByteBuffer.wrap(bytes), 0, bytes.length);
+        counts[e] = count;
+    }
+
+    //Return the count of the key, or 0 if it is not in the table
+    public int count(String key) {
+        int i = slot(key);
+        return table[i] == 0 ? 0 : counts[table[i] - 1];
+    }
+
+    //Is the key in the table, even with a count of 0?
+    public boolean contains(String key) {
+        return table[slot(key)] != 0;
+    }
+
+    //Decode the word of entry e
+    private String key(int e) {
+        return new String(arena, offsets[e], lengths[e], StandardCharsets.UTF_8);
+    }
+
+    //Pass every word and its count to action, in order of insertion, decoding each word once
+    public void forEach(ObjIntConsumer<? super String> action) {
+        for (int e = 0; e < size; e++) {
+            action.accept(key(e), counts[e]);
+        }
+    }
+
+    public Iterable<String> keys() {
+        ArrayList<String> forIterating = new ArrayList<String>(size);
+        for (int e = 0; e < size; e++) {
+            forIterating.add(key(e));
+        }
+        return forIterating;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //Bytes of word text held in the arena
+    public int arenaSize() {
+        return arenaSize;
+    }
+
+    public int compares() {
+        return compares;
+    }
+
+    public int words() {
+        return words;
+    }
+
+
+    public static void main(String[] args) {
+        ByteArenaCountST testCounter = new ByteArenaCountST();
+
+        testCounter.increment("Three");
+        testCounter.increment("One");
+        testCounter.increment("Two");
+        testCounter.increment("Three");
+        testCounter.increment("One", 10);
+        testCounter.increment("Three");
+
+        //Count a word straight from a buffer holding other bytes around it
+        ByteBuffer line = ByteBuffer.wrap("the Two words".getBytes(StandardCharsets.UTF_8));
+        testCounter.increment(line, 4, 3, 1);
+
+        for (String word : testCounter.keys()) {
+            StdOut.println(word + " " + testCounter.count(word));
+        }
+        StdOut.println("Size: " + testCounter.size());
+        StdOut.println("Arena bytes: " + testCounter.arenaSize());
+        StdOut.println("Count of Four: " + testCounter.count("Four"));
+    }
+}
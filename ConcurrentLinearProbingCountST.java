@@ -0,0 +1,483 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ Counting Symbol Table implemented as a hash using linear probing, safe to update from many threads at once
+ without locks. A key takes an empty slot with a compare-and-set, and never leaves it, and counts are
+ added with a compare-and-set on a long[] through a VarHandle, so threads counting the same hot word
+ only retry, never block. Counts never go below 0, which leaves the top bit of each count free for the
+ table to mark its own state with
+ Growing the table is shared by the threads that run into it. Each slot of the old table is frozen: an
+ empty slot is replaced with a MOVED marker and a used slot has the top bit of its count set, after which
+ its count never changes. A frozen count is carried into the next table as the starting count of its key,
+ and the next table keeps every slot UNSET until that starting count arrives, so a carried count can be
+ copied by any number of threads and still lands exactly once. Readers never write or wait: a key that is
+ frozen, or missing from a table that is growing, is followed into the next table with the count it had
+ Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
+ */
+public class ConcurrentLinearProbingCountST<Key> {
+    private static int init_capacity = 16;
+
+    //Slots moved at a time by a thread helping to grow the table
+    private static final int CHUNK = 64;
+
+    //Marks a slot that was empty when its table was frozen
+    private static final Object MOVED = new Object();
+
+    //Set in a count once its slot has been frozen
+    private static final long FROZEN = Long.MIN_VALUE;
+
+    //Count of a claimed slot whose starting count has not been set yet, which no frozen count can equal
+    private static final long UNSET = -1;
+
+    //Largest count a key can reach, kept below Long.MAX_VALUE so a frozen count is never UNSET
+    private static final long MAX_COUNT = Long.MAX_VALUE - 1;
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle ROOT;
+    private static final VarHandle NEXT;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ROOT = lookup.findVarHandle(ConcurrentLinearProbingCountST.class, "root", Table.class);
+            NEXT = lookup.findVarHandle(Table.class, "next", Table.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile Table root;
+
+    private final LongAdder size = new LongAdder();
+    private final LongAdder compares = new LongAdder();
+    private final LongAdder words = new LongAdder();
+
+    private static class Table {
+        private final Object[] keys;
+        private final long[] counts;
+        private final int mask;
+        private final AtomicInteger used = new AtomicInteger();      //Slots holding a key
+        private final AtomicInteger claimed = new AtomicInteger();   //Slots handed out to be moved
+        private final AtomicInteger moved = new AtomicInteger();     //Slots moved
+        private volatile Table next;                                 //Table being grown into, if any
+
+        private Table(int capacity) {
+            keys = new Object[capacity];
+            counts = new long[capacity];
+            Arrays.fill(counts, UNSET);
+            mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return mask + 1;
+        }
+    }
+
+    public ConcurrentLinearProbingCountST(int capacity) {
+        //Round up to a power of two so the hash can be reduced with a mask
+        int tableSize = init_capacity;
+        while (tableSize < 2*capacity) {
+            tableSize *= 2;
+        }
+        root = new Table(tableSize);
+    }
+
+    public ConcurrentLinearProbingCountST() {
+        this(init_capacity/2);
+    }
+
+    //Return an integer to be used as an array index based on the hashcode of the key
+    //The high bits are folded in since only the low bits survive the mask
+    private static int hash(Object toHash) {
+        int h = toHash.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+
+    /**********
+     * Counting Methods
+     **********/
+
+    //Add one to the count of the key, inserting it if needed, and return the new count
+    public long increment(Key key) {
+        return increment(key, 1);
+    }
+
+    //Add amount to the count of the key, inserting it if needed, and return the new count
+    public long increment(Key key, long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counts cannot go down, amount was " + amount);
+        }
+        words.increment();
+        return update(root, key, 0, amount, false, true);
+    }
+
+    //Replace the count of the key in one step, inserting it if needed
+    public void put(Key key, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Counts cannot be negative, count was " + count);
+        }
+        words.increment();
+        update(root, key, 0, count, true, true);
+    }
+
+    //Add amount to the count of the key, or replace the count with amount if replace is set, and return
+    //the new count. The search starts in t, where a key that is not there yet starts with initial
+    //A call from a client is counted, while carrying a frozen count into the next table is not
+    private long update(Table t, Object key, long initial, long amount, boolean replace, boolean counted) {
+        int h = hash(key);
+        int probes = 0;
+        boolean found = false;
+
+        outer:
+        while (true) {
+            //Once t has started growing, help move it before looking for the key
+            if (t.next != null) {
+                help(t);
+            }
+
+            int i = h & t.mask;
+            for (int probe = 0; probe <= t.mask; probe++, i = (i + 1) & t.mask) {
+                Object k = KEYS.getVolatile(t.keys, i);
+
+                //Claim an empty slot, or once t is growing close it off so the key can only go in the next table
+                //If another thread gets there first look at what it put there
+                if (k == null) {
+                    Object claim = t.next == null ? key : MOVED;
+                    if (KEYS.compareAndSet(t.keys, i, null, claim)) {
+                        k = claim;
+                        if (claim == key) {
+                            if (counted && !found) {
+                                size.increment();
+                            }
+                            //Keep the table at most half full so probe sequences stay short
+                            if (2*t.used.incrementAndGet() > t.capacity()) {
+                                grow(t);
+                            }
+                        }
+                    } else {
+                        k = KEYS.getVolatile(t.keys, i);
+                    }
+                }
+
+                if (k == MOVED) {
+                    t = t.next;
+                    continue outer;
+                }
+
+                probes++;
+                if (k != key && !k.equals(key)) {
+                    continue;
+                }
+                found = true;
+
+                while (true) {
+                    long c = (long) COUNTS.getVolatile(t.counts, i);
+                    if (c == UNSET) {
+                        COUNTS.compareAndSet(t.counts, i, UNSET, initial);
+                        continue;
+                    }
+                    if ((c & FROZEN) != 0) {
+                        initial = c & ~FROZEN;
+                        t = t.next;
+                        continue outer;
+                    }
+                    if (t.next != null) {
+                        //Freeze the count and carry it into the next table ourselves
+                        if (COUNTS.compareAndSet(t.counts, i, c, c | FROZEN)) {
+                            initial = c;
+                            t = t.next;
+                            continue outer;
+                        }
+                        continue;
+                    }
+
+                    if (!replace && amount > MAX_COUNT - c) {
+                        throw new ArithmeticException("Count overflow");
+                    }
+                    long updated = replace ? amount : c + amount;
+                    if (COUNTS.compareAndSet(t.counts, i, c, updated)) {
+                        if (counted) {
+                            compares.add(probes);
+                        }
+                        return updated;
+                    }
+                }
+            }
+
+            //Every slot holds another key, which only happens when threads claim slots faster than the table grows
+            grow(t);
+            t = t.next;
+        }
+    }
+
+    //Return the count of the key, or -1 if it is not in the table
+    //Never writes or waits: a frozen count, or a closed off slot, is followed into the next table
+    private long read(Object key) {
+        int h = hash(key);
+        int probes = 0;
+        Table t = root;
+        long initial = 0;
+        boolean found = false;
+
+        outer:
+        while (true) {
+            int i = h & t.mask;
+            for (int probe = 0; probe <= t.mask; probe++, i = (i + 1) & t.mask) {
+                Object k = KEYS.getVolatile(t.keys, i);
+                if (k == null) {
+                    //Nothing has carried the key past here, so its count is the one it had coming in
+                    compares.add(probes);
+                    return found ? initial : -1;
+                }
+                if (k == MOVED) {
+                    t = t.next;
+                    continue outer;
+                }
+
+                probes++;
+                if (k != key && !k.equals(key)) {
+                    continue;
+                }
+                found = true;
+
+                long c = (long) COUNTS.getVolatile(t.counts, i);
+                if ((c & FROZEN) == 0) {
+                    compares.add(probes);
+                    return c;
+                }
+                if (c == UNSET) {
+                    //Nothing has been added to the key in this table yet
+                    compares.add(probes);
+                    return initial;
+                }
+                initial = c & ~FROZEN;
+                t = t.next;
+                continue outer;
+            }
+
+            if (t.next == null) {
+                compares.add(probes);
+                return found ? initial : -1;
+            }
+            t = t.next;
+        }
+    }
+
+    //Return the count of the key, or 0 if it is not in the table
+    public long count(Key key) {
+        return Math.max(read(key), 0);
+    }
+
+    //Is the key in the table, even with a count of 0?
+    public boolean contains(Key key) {
+        return read(key) >= 0;
+    }
+
+
+    /**********
+     * Growing Methods
+     **********/
+
+    //Start growing t into a table twice the size, unless another thread already has
+    private void grow(Table t) {
+        if (t.next == null) {
+            NEXT.compareAndSet(t, null, new Table(2*t.capacity()));
+        }
+    }
+
+    //Move chunks of t into its next table until none are left to hand out
+    private void help(Table t) {
+        int capacity = t.capacity();
+
+        int start;
+        while (t.claimed.get() < capacity && (start = t.claimed.getAndAdd(CHUNK)) < capacity) {
+            int end = Math.min(start + CHUNK, capacity);
+            for (int i = start; i < end; i++) {
+                move(t, i);
+            }
+            if (t.moved.addAndGet(end - start) == capacity) {
+                advanceRoot();
+            }
+        }
+    }
+
+    //Freeze slot i of t and make sure its key is in the next table with the frozen count
+    //Carrying a count is safe to repeat, since only an UNSET slot takes the carried count
+    private void move(Table t, int i) {
+        Object k = KEYS.getVolatile(t.keys, i);
+        if (k == null && KEYS.compareAndSet(t.keys, i, null, MOVED)) {
+            return;
+        }
+        k = KEYS.getVolatile(t.keys, i);
+        if (k == MOVED) {
+            return;
+        }
+
+        while (true) {
+            long c = (long) COUNTS.getVolatile(t.counts, i);
+            if (c == UNSET) {
+                COUNTS.compareAndSet(t.counts, i, UNSET, carried(t, k));
+                continue;
+            }
+            if ((c & FROZEN) != 0) {
+                update(t.next, k, c & ~FROZEN, 0, false, false);
+                return;
+            }
+            if (COUNTS.compareAndSet(t.counts, i, c, c | FROZEN)) {
+                update(t.next, k, c, 0, false, false);
+                return;
+            }
+        }
+    }
+
+    //Return the count the key was carried into t with, following it from the root through the tables before t
+    //Any table before t that the key passed through has already frozen it, or closed off its probe sequence
+    private long carried(Table t, Object key) {
+        int h = hash(key);
+        long initial = 0;
+        for (Table s = root; s != t; s = s.next) {
+            int i = h & s.mask;
+            for (int probe = 0; probe <= s.mask; probe++, i = (i + 1) & s.mask) {
+                Object k = KEYS.getVolatile(s.keys, i);
+                if (k == null || k == MOVED) {
+                    break;
+                }
+                if (k == key || k.equals(key)) {
+                    long c = (long) COUNTS.getVolatile(s.counts, i);
+                    if (c != UNSET) {
+                        initial = c & ~FROZEN;
+                    }
+                    break;
+                }
+            }
+        }
+        return initial;
+    }
+
+    //Move the root past every table that has been completely moved
+    private void advanceRoot() {
+        Table r = root;
+        while (r.next != null && r.moved.get() == r.capacity()) {
+            ROOT.compareAndSet(this, r, r.next);
+            r = root;
+        }
+    }
+
+    //Is the key in t? Stops at the end of its probe sequence, past which it can never be added
+    private boolean holds(Table t, Object key) {
+        int i = hash(key) & t.mask;
+        for (int probe = 0; probe <= t.mask; probe++, i = (i + 1) & t.mask) {
+            Object k = KEYS.getVolatile(t.keys, i);
+            if (k == null || k == MOVED) {
+                return false;
+            }
+            if (k == key || k.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**********
+     * General Utility Methods
+     **********/
+
+    //Pass every key and its count to action, without boxing the counts
+    //While the table grows each key is passed from the oldest table holding it, with its count looked up
+    //through to the newest. Counts added while this runs may or may not be seen
+    public void forEach(ObjLongConsumer<? super Key> action) {
+        Table first = root;
+        for (Table t = first; t != null; t = t.next) {
+            for (int i = 0; i <= t.mask; i++) {
+                Object k = KEYS.getVolatile(t.keys, i);
+                if (k == null || k == MOVED) {
+                    continue;
+                }
+
+                boolean seen = false;
+                for (Table s = first; s != t && !seen; s = s.next) {
+                    seen = holds(s, k);
+                }
+                if (seen) {
+                    continue;
+                }
+
+                long c = (long) COUNTS.getVolatile(t.counts, i);
+                action.accept((Key) k, (c & FROZEN) == 0 ? c : Math.max(read(k), 0));
+            }
+        }
+    }
+
+    public Iterable<Key> keys() {
+        List<Key> forIterating = new ArrayList<Key>();
+        forEach((key, count) -> forIterating.add(key));
+        return forIterating;
+    }
+
+    public int size() {
+        return size.intValue();
+    }
+
+    public int compares() {
+        return compares.intValue();
+    }
+
+    public int words() {
+        return words.intValue();
+    }
+
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentLinearProbingCountST<String> testCounter = new ConcurrentLinearProbingCountST<String>();
+
+        testCounter.increment("Three");
+        testCounter.increment("One");
+        testCounter.increment("Two");
+        testCounter.increment("Three");
+        testCounter.increment("One", 10);
+        testCounter.increment("Three");
+
+        for (String word : testCounter.keys()) {
+            StdOut.println(word + " " + testCounter.count(word));
+        }
+        testCounter.put("Two", 0);
+        StdOut.println("Size: " + testCounter.size());
+        StdOut.println("Count of Two after put: " + testCounter.count("Two"));
+        StdOut.println("Contains Two: " + testCounter.contains("Two"));
+        StdOut.println("Count of Four: " + testCounter.count("Four"));
+
+        //Four threads each count every key from 0 to 99999 ten times, starting from the smallest table
+        ConcurrentLinearProbingCountST<Integer> counts = new ConcurrentLinearProbingCountST<Integer>();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 1000000; i++) {
+                    counts.increment(i % 100000);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        List<Integer> wrong = new ArrayList<Integer>();
+        counts.forEach((key, count) -> {
+            if (count != 40) {
+                wrong.add(key);
+            }
+        });
+        StdOut.println("Distinct keys after concurrent increments: " + counts.size());
+        StdOut.println("Keys with a lost update: " + wrong.size());
+    }
+}
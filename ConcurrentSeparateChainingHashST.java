@@ -0,0 +1,234 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ Symbol Table implemented as a hash using an array of linked lists, safe to update from many threads at once
+ The chains are guarded by a fixed array of lock stripes, chain i by stripe i % stripes. The table size is
+ kept a multiple of the stripe count, so a key's stripe depends only on its hash code and never changes when
+ the table grows, and threads working on keys in different stripes never wait for each other. Resizing
+ takes every stripe. The table level counters are LongAdders, so they do not serialise the threads either
+ Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
+ */
+public class ConcurrentSeparateChainingHashST<Key, Value> {
+    //Grow the table once the average chain holds this many keys
+    private static final int MAX_CHAIN_LENGTH = 4;
+
+    private final ReentrantLock[] locks;
+
+    //Only replaced while every stripe is held, so any one stripe is enough to read them
+    private int tableSize;
+    private LLSymbolTable<Key, Value>[] hashST;
+
+    private final LongAdder size = new LongAdder();
+    private final LongAdder compares = new LongAdder();
+    private final LongAdder words = new LongAdder();
+
+    public ConcurrentSeparateChainingHashST() {
+        this(1024, 64);
+    }
+
+    public ConcurrentSeparateChainingHashST(int size, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Need at least one lock stripe");
+        }
+
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        //Round up to a multiple of the stripe count
+        this.tableSize = Math.max(1, (size + stripes - 1) / stripes) * stripes;
+        hashST = newChains(tableSize);
+    }
+
+    private LLSymbolTable<Key, Value>[] newChains(int capacity) {
+        LLSymbolTable<Key, Value>[] chains = (LLSymbolTable<Key, Value>[]) new LLSymbolTable[capacity];
+        for (int i=0; i < capacity; i++) {
+            chains[i] = new LLSymbolTable();
+        }
+        return chains;
+    }
+
+    //Non-negative hash code of the key, reduced modulo the table size for a chain or the stripe count for a lock
+    private int hash(Key toHash) {
+        return toHash.hashCode() & 0x7fffffff;
+    }
+
+    private ReentrantLock lockFor(int hash) {
+        return locks[hash % locks.length];
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    //Double the table if the average chain is still too long once every stripe is held,
+    //since another thread may have resized it in the meantime
+    private void resize(int expectedSize) {
+        lockAll();
+        try {
+            if (tableSize != expectedSize) {
+                return;
+            }
+
+            LLSymbolTable<Key, Value>[] oldST = hashST;
+            int capacity = 2*tableSize;
+            LLSymbolTable<Key, Value>[] newST = newChains(capacity);
+            for (LLSymbolTable<Key, Value> chain : oldST) {
+                chain.forEach((key, val) -> newST[hash(key) % capacity].insertNew(key, val));
+            }
+
+            hashST = newST;
+            tableSize = capacity;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    public void put(Key newKey, Value newVal) {
+        merge(newKey, newVal, null);
+    }
+
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //A null mergeFunction replaces the value, as put does. The whole update happens under the key's stripe
+    //Return the value the key holds afterwards
+    public Value merge(Key newKey, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words.increment();
+        int h = hash(newKey);
+        boolean added;
+        int seenSize;
+        Value merged;
+
+        ReentrantLock lock = lockFor(h);
+        lock.lock();
+        try {
+            seenSize = tableSize;
+            LLSymbolTable<Key, Value> chain = hashST[h % tableSize];
+            int chainSize = chain.size();
+            int chainCompares = chain.compares();
+            if (mergeFunction == null) {
+                chain.put(newKey, newVal);
+                merged = newVal;
+            } else {
+                merged = chain.merge(newKey, newVal, mergeFunction);
+            }
+            compares.add(chain.compares() - chainCompares);
+            added = chain.size() > chainSize;
+        } finally {
+            lock.unlock();
+        }
+
+        if (added) {
+            size.increment();
+            if (size.sum() >= MAX_CHAIN_LENGTH*seenSize) {
+                resize(seenSize);
+            }
+        }
+        return merged;
+    }
+
+    public boolean contains(Key newKey) {
+        return get(newKey) != null;
+    }
+
+    public Value get(Key searchKey) {
+        int h = hash(searchKey);
+
+        ReentrantLock lock = lockFor(h);
+        lock.lock();
+        try {
+            LLSymbolTable<Key, Value> chain = hashST[h % tableSize];
+            int chainCompares = chain.compares();
+            Value val = chain.get(searchKey);
+            compares.add(chain.compares() - chainCompares);
+            return val;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Pass every key and its value to action, one chain at a time, while holding every stripe
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        lockAll();
+        try {
+            for (int i=0; i < tableSize; i++) {
+                hashST[i].forEach(action);
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+
+    //Keys present at the time of the call
+    public Iterable<Key> keys() {
+        List<Key> forIterating = new ArrayList<Key>();
+        forEach((key, val) -> forIterating.add(key));
+        return forIterating;
+    }
+
+    public int size() {
+        return size.intValue();
+    }
+
+    public int compares() {
+        return compares.intValue();
+    }
+
+    public int words() {
+        return words.intValue();
+    }
+
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentSeparateChainingHashST<Integer, String> testHash = new ConcurrentSeparateChainingHashST<Integer, String>(17, 4);
+
+        testHash.put(3, "Three");
+        testHash.put(1, "One");
+        testHash.put(2, "Two");
+        testHash.put(4, "Four");
+        testHash.put(1, "OneOne");
+        testHash.put(10, "Ten");
+
+        for (Integer myInt : testHash.keys()) {
+            StdOut.println(myInt + " " + testHash.get(myInt));
+        }
+
+        //Four threads each count every key from 0 to 9999 a hundred times, growing the table as they go
+        ConcurrentSeparateChainingHashST<Integer, Integer> counts = new ConcurrentSeparateChainingHashST<Integer, Integer>(16, 16);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 1000000; i++) {
+                    counts.merge(i % 10000, 1, Integer::sum);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        List<Integer> wrong = new ArrayList<Integer>();
+        counts.forEach((key, count) -> {
+            if (count != 400) {
+                wrong.add(key);
+            }
+        });
+        StdOut.println("Distinct keys after concurrent merges: " + counts.size());
+        StdOut.println("Keys with a lost update: " + wrong.size());
+    }
+}
@@ -0,0 +1,342 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ Ordered Symbol Table implemented as a lock-free skip list, safe to update from many threads at once
+ A new node is linked into the bottom list with a compare-and-set, then into the levels above it, so
+ every thread sees a sorted list at each level. Values are replaced or merged with a compare-and-set
+ loop, so concurrent merges of the same key are never lost. Entries are never removed, which keeps
+ every link stable once it is set
+ Iteration and range queries are weakly consistent: they see every key present when they start,
+ and may or may not see keys added while they run
+ */
+public class ConcurrentSkipListSymbolTable<Key extends Comparable<Key>, Value> {
+    private static final int MAX_LEVEL = 32;
+
+    private static final VarHandle VAL;
+    static {
+        try {
+            VAL = MethodHandles.lookup().findVarHandle(Node.class, "val", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    //Sentinel in front of every level, its key is never compared
+    private final Node<Key, Value> head = new Node<Key, Value>(null, null, MAX_LEVEL);
+
+    //Spread over cells so threads counting at the same time do not contend on one field
+    private final LongAdder size = new LongAdder();
+    private final LongAdder compares = new LongAdder();
+    private final LongAdder words = new LongAdder();
+
+    private static class Node<Key, Value> {
+        private final Key key;
+        private volatile Value val;
+        private final AtomicReferenceArray<Node<Key, Value>> next;
+
+        private Node(Key key, Value val, int levels) {
+            this.key = key;
+            this.val = val;
+            this.next = new AtomicReferenceArray<Node<Key, Value>>(levels);
+        }
+    }
+
+    //Each extra level is taken with probability 1/2
+    private static int randomLevel() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        int level = 1 + Integer.numberOfTrailingZeros(bits);
+        return Math.min(level, MAX_LEVEL);
+    }
+
+
+    /**********
+     * Search/Retrieval Methods
+     **********/
+
+    //Find the node holding searchKey, or null if there is none
+    //If preds is given, fill preds and succs with the nodes on either side of searchKey on every level
+    //down to the first level holding searchKey
+    private Node<Key, Value> find(Key searchKey, Node<Key, Value>[] preds, Node<Key, Value>[] succs) {
+        int count = 0;
+        Node<Key, Value> pred = head;
+
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node<Key, Value> current = pred.next.get(level);
+            int cmp = 1;
+            while (current != null) {
+                count++;
+                cmp = searchKey.compareTo(current.key);
+                if (cmp <= 0) {
+                    break;
+                }
+                pred = current;
+                current = pred.next.get(level);
+            }
+
+            //Nodes are linked from the bottom up, so one found on any level is in the bottom list
+            if (current != null && cmp == 0) {
+                compares.add(count);
+                return current;
+            }
+            if (preds != null) {
+                preds[level] = pred;
+                succs[level] = current;
+            }
+        }
+
+        compares.add(count);
+        return null;
+    }
+
+    //Return the last node with a key < searchKey, or head if there is none
+    private Node<Key, Value> lower(Key searchKey) {
+        Node<Key, Value> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node<Key, Value> current = pred.next.get(level);
+            while (current != null && searchKey.compareTo(current.key) > 0) {
+                pred = current;
+                current = pred.next.get(level);
+            }
+        }
+        return pred;
+    }
+
+    //Return the value with the matching searchKey
+    public Value get(Key searchKey) {
+        Node<Key, Value> found = find(searchKey, null, null);
+        return found == null ? null : found.val;
+    }
+
+    public boolean contains(Key searchKey) {
+        return get(searchKey) != null;
+    }
+
+    public Key min() {
+        Node<Key, Value> first = head.next.get(0);
+        if (first == null) throw new NoSuchElementException("Skip list is empty");
+        return first.key;
+    }
+
+    public Key max() {
+        Node<Key, Value> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node<Key, Value> current = pred.next.get(level);
+            while (current != null) {
+                pred = current;
+                current = pred.next.get(level);
+            }
+        }
+        if (pred == head) throw new NoSuchElementException("Skip list is empty");
+        return pred.key;
+    }
+
+    //Return the largest key <= searchKey, or null if there is none
+    public Key floor(Key searchKey) {
+        Node<Key, Value> pred = lower(searchKey);
+        Node<Key, Value> next = pred.next.get(0);
+        if (next != null && searchKey.compareTo(next.key) == 0) {
+            return next.key;
+        }
+        return pred == head ? null : pred.key;
+    }
+
+    //Return the smallest key >= searchKey, or null if there is none
+    public Key ceiling(Key searchKey) {
+        Node<Key, Value> next = lower(searchKey).next.get(0);
+        return next == null ? null : next.key;
+    }
+
+
+    /**********
+     * Insertion Methods
+     **********/
+
+    public void put(Key key, Value newVal) {
+        merge(key, newVal, null);
+    }
+
+    //If the key exists, atomically combine its value with newVal using mergeFunction, otherwise insert newVal
+    //A null mergeFunction replaces the value, as put does. mergeFunction may be called more than once
+    //when other threads update the same key at the same time, so it should have no side effects
+    //Return the value the key holds afterwards
+    public Value merge(Key key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words.increment();
+
+        //Most merges hit a key that is already there, so look for it without recording the path first,
+        //and only allocate the arrays for the neighbours when a new node has to be linked in
+        Node<Key, Value> existing = find(key, null, null);
+        if (existing != null) {
+            return update(existing, newVal, mergeFunction);
+        }
+        Node<Key, Value>[] preds = (Node<Key, Value>[]) new Node[MAX_LEVEL];
+        Node<Key, Value>[] succs = (Node<Key, Value>[]) new Node[MAX_LEVEL];
+
+        while (true) {
+            Node<Key, Value> found = find(key, preds, succs);
+            if (found != null) {
+                return update(found, newVal, mergeFunction);
+            }
+
+            //Publishing the node in the bottom list is what inserts it, losing this race means
+            //another thread linked a node next to it first, so search again
+            int levels = randomLevel();
+            Node<Key, Value> node = new Node<Key, Value>(key, newVal, levels);
+            for (int level = 0; level < levels; level++) {
+                node.next.set(level, succs[level]);
+            }
+            if (!preds[0].next.compareAndSet(0, succs[0], node)) {
+                continue;
+            }
+            size.increment();
+
+            //Link the upper levels, refreshing the neighbours whenever another insertion gets in between
+            for (int level = 1; level < levels; level++) {
+                while (!preds[level].next.compareAndSet(level, succs[level], node)) {
+                    find(key, preds, succs);
+                    node.next.set(level, succs[level]);
+                }
+            }
+            return newVal;
+        }
+    }
+
+    private Value update(Node<Key, Value> node, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        if (mergeFunction == null) {
+            node.val = newVal;
+            return newVal;
+        }
+
+        while (true) {
+            Value oldVal = node.val;
+            Value merged = mergeFunction.apply(oldVal, newVal);
+            if (VAL.compareAndSet(node, oldVal, merged)) {
+                return merged;
+            }
+        }
+    }
+
+
+    /**********
+     * General Utility Methods
+     **********/
+
+    //Pass every key and its value to action, in key order
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        for (Node<Key, Value> x = head.next.get(0); x != null; x = x.next.get(0)) {
+            action.accept(x.key, x.val);
+        }
+    }
+
+    //Iterate over the keys in order, lazily
+    public Iterable<Key> keys() {
+        return keys(null, null);
+    }
+
+    //Iterate over the keys in [lo, hi] in order, lazily, where a null bound leaves that end open
+    public Iterable<Key> keys(Key lo, Key hi) {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                return new Iterator<Key>() {
+                    private Node<Key, Value> current = (lo == null ? head : lower(lo)).next.get(0);
+
+                    public boolean hasNext() {
+                        return current != null && (hi == null || hi.compareTo(current.key) >= 0);
+                    }
+
+                    public Key next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException("No more keys");
+                        }
+                        Key key = current.key;
+                        current = current.next.get(0);
+                        return key;
+                    }
+                };
+            }
+        };
+    }
+
+    public int size() {
+        return size.intValue();
+    }
+
+    public int compares() {
+        return compares.intValue();
+    }
+
+    public int words() {
+        return words.intValue();
+    }
+
+    public boolean isEmpty() {
+        return head.next.get(0) == null;
+    }
+
+
+    /**********
+     * Test Client
+     **********/
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentSkipListSymbolTable<Integer, String> testSkipList = new ConcurrentSkipListSymbolTable<Integer, String>();
+
+        testSkipList.put(3, "Three");
+        testSkipList.put(1, "One");
+        testSkipList.put(2, "Two");
+        testSkipList.put(4, "Four");
+        testSkipList.put(1, "OneOne");
+        testSkipList.put(10, "Ten");
+
+        for (Integer myInt : testSkipList.keys()) {
+            StdOut.println(myInt + " " + testSkipList.get(myInt));
+        }
+        StdOut.println("Size: " + testSkipList.size());
+        StdOut.println("Min: " + testSkipList.min());
+        StdOut.println("Max: " + testSkipList.max());
+        StdOut.println("Floor of 5: " + testSkipList.floor(5));
+        StdOut.println("Ceiling of 5: " + testSkipList.ceiling(5));
+        StdOut.println("Floor of 0: " + testSkipList.floor(0));
+        StdOut.println("Ceiling of 11: " + testSkipList.ceiling(11));
+
+        StdOut.print("Keys between 2 and 4:");
+        for (Integer myInt : testSkipList.keys(2, 4)) {
+            StdOut.print(" " + myInt);
+        }
+        StdOut.println();
+
+        //Four threads each count every key from 0 to 999 a thousand times
+        ConcurrentSkipListSymbolTable<Integer, Integer> counts = new ConcurrentSkipListSymbolTable<Integer, Integer>();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 1000000; i++) {
+                    counts.merge(i % 1000, 1, Integer::sum);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        List<Integer> wrong = new ArrayList<Integer>();
+        counts.forEach((key, count) -> {
+            if (count != 4000) {
+                wrong.add(key);
+            }
+        });
+        StdOut.println("Distinct keys after concurrent merges: " + counts.size());
+        StdOut.println("Keys with a lost update: " + wrong.size());
+    }
+}
@@ -1,141 +1,339 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  Test client for various Symbol Table implementations
  Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
  */
 public class FrequencyCounter {
+    private static final int BATCH = 1024;    //Words counted per turn of the streaming lock
+
     public static void main(String args[]) {
+        //Split options from the positional minLength and file name arguments
+        int threads = 1;
+        int topK = 1;
+        List<String> impls = null;
+        long every = 0;
+        long interval = 0;
+        List<String> positional = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--top")) {
+                topK = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--impl")) {
+                impls = Arrays.asList(args[++i].split(","));
+            } else if (args[i].equals("--every")) {
+                every = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--interval")) {
+                interval = Long.parseLong(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+
         //Cut off for the length of word
-        int minLength = Integer.parseInt(args[0]);
+        int minLength = Integer.parseInt(positional.get(0));
+        String fileName = positional.size() > 1 ? positional.get(1) : null;
 
-        //Symbol Tables
-        //Linked List implementation
-        LLSymbolTable<String, Integer> llst = new LLSymbolTable<String, Integer>();
+        //Streaming mode prints a snapshot every N words and/or every T seconds while it keeps reading
+        boolean streaming = every > 0 || interval > 0;
 
-        //Ordered Parallel Arrays implementation
-        BSSymbolTable<String, Integer> bsst = new BSSymbolTable<String, Integer>();
+        //Parallel mode splits the file between workers, so it needs a file rather than standard input
+        if (threads > 1) {
+            if (streaming) {
+                throw new IllegalArgumentException("--every and --interval cannot be combined with --threads");
+            }
+            if (fileName == null) {
+                throw new IllegalArgumentException("--threads requires an input file");
+            }
+            if (impls == null) {
+                impls = Arrays.asList("hash");
+            }
+            countParallel(fileName, minLength, threads, topK, impls);
+            return;
+        }
 
-        //Binary Search Tree implementation
-        BSTSymbolTable<String, Integer> bstst = new BSTSymbolTable<String, Integer>();
+        //Symbol Tables, every implementation unless --impl picks some
+        //An unbounded stream only gets the hash table by default, since the quadratic tables would never keep up
+        if (impls == null) {
+            impls = streaming ? Arrays.asList("hash") : Arrays.asList(WordCounter.IMPLEMENTATIONS);
+        }
+        WordCounter[] counters = new WordCounter[impls.size()];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = WordCounter.create(impls.get(i));
+        }
 
-        //Red-Black Tree implementation
-        RBTSymbolTable<String, Integer> rbtst = new RBTSymbolTable<String, Integer>();
+        //If a file name is given, memory-map it instead of scanning standard input
+        MappedIn in = null;
+        if (fileName != null) {
+            in = new MappedIn(fileName);
+        }
 
-        //Chained Hash Table implementation
-        SeparateChainingHashST<String, Integer> cHashST = new SeparateChainingHashST<String, Integer>();
+        //Build Symbol Tables
+        //Read each string in. If it's long enough, add it to each Symbol Table.
+        //If it doesn't already exist it is added with a count of 1, if it does the count is incremented
+        try {
+            if (streaming) {
+                countStreaming(counters, in, minLength, topK, every, interval);
+            } else {
+                String next = null;
+                while (in != null ? in.readToken(minLength) >= 0 : (next = nextWord(minLength)) != null) {
+                    countToken(counters, in, next);
+                }
+            }
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
 
+        reportAll(counters, topK);
+    }
 
-        //Build Symbol Tables
-        //Read each string in. If it's long enough, try and add it to the Symbol Table.
-        //If it doesn't already exists, add it, if it does increment the count for it
-        while (!StdIn.isEmpty()) {
-            String word = StdIn.readString();
-            if (word.length() >= minLength) {
+    //Count words until the input runs out, printing a snapshot every N words and/or every T seconds
+    //Each counter keeps a running top list as it counts, so a snapshot never walks a table. The interval
+    //snapshots come from a timer thread, so they keep coming while the input is idle, and share a lock
+    //with the counting, which takes it once per batch of words rather than once per word
+    private static void countStreaming(WordCounter[] counters, MappedIn in, int minLength, int topK, long every, long interval) {
+        Object lock = new Object();
+        long start = System.nanoTime();
+        List<RunningTopK<String>> boards = new ArrayList<RunningTopK<String>>();
+        for (int i = 0; i < counters.length; i++) {
+            boards.add(new RunningTopK<String>(topK));
+        }
 
-                if(!llst.contains(word)) {
-                    llst.put(word, 1);
-                } else {
-                    llst.put(word, llst.get(word)+1);
+        ScheduledExecutorService timer = null;
+        if (interval > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "snapshot timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleAtFixedRate(() -> {
+                synchronized (lock) {
+                    reportSnapshot(counters, boards, start);
                 }
+            }, interval, interval, TimeUnit.SECONDS);
+        }
 
-                if(!bsst.contains(word)) {
-                    bsst.put(word, 1);
-                } else {
-                    bsst.put(word, bsst.get(word)+1);
+        if (in != null) {
+            //A mapped file never blocks, so the lock is held while a whole batch is read and counted
+            boolean more = true;
+            while (more) {
+                synchronized (lock) {
+                    for (int n = 0; n < BATCH && (more = in.readToken(minLength) >= 0); n++) {
+                        countWord(counters, boards, in, null, every, start);
+                    }
                 }
-
-                if(!bstst.contains(word)) {
-                    bstst.put(word, 1);
-                } else {
-                    bstst.put(word, bstst.get(word)+1);
+            }
+        } else {
+            //Standard input can block, so a batch is read ahead without the lock and counted under it,
+            //leaving the timer free to report while the input is idle. A batch ends early once no more
+            //input is waiting, so words that have arrived are never held back by a read that blocks
+            String[] batch = new String[BATCH];
+            boolean more = true;
+            while (more) {
+                int n = 0;
+                while (n < BATCH && (n == 0 || inputWaiting())) {
+                    String word = nextWord(minLength);
+                    if (word == null) {
+                        more = false;
+                        break;
+                    }
+                    batch[n++] = word;
                 }
-
-                if(!rbtst.contains(word)) {
-                    rbtst.put(word, 1);
-                } else {
-                    rbtst.put(word, rbtst.get(word)+1);
+                synchronized (lock) {
+                    for (int i = 0; i < n; i++) {
+                        countWord(counters, boards, null, batch[i], every, start);
+                    }
                 }
+            }
+        }
+
+        if (timer != null) {
+            timer.shutdown();
+            try {
+                timer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
-                if(!cHashST.contains(word)) {
-                    cHashST.put(word, 1);
-                } else {
-                    cHashST.put(word, cHashST.get(word)+1);
+    //Count one word in every counter and its running top list, printing a snapshot if one is due
+    //A null word means the token last read by in, which a counter of bytes only decodes if it may make the top list
+    private static void countWord(WordCounter[] counters, List<RunningTopK<String>> boards, MappedIn in, String word,
+                                  long every, long start) {
+        String decoded = word;
+        for (int i = 0; i < counters.length; i++) {
+            WordCounter counter = counters[i];
+            RunningTopK<String> board = boards.get(i);
+            if (word == null && counter.countsBytes()) {
+                int count = counter.incrementBytes(in.tokenBytes(), in.tokenStart(), in.tokenLength(), 1);
+                if (board.admits(count)) {
+                    board.update(in.tokenString(), count);
                 }
+            } else {
+                if (decoded == null) {
+                    decoded = in.tokenString();
+                }
+                board.update(decoded, counter.increment(decoded, 1));
             }
         }
 
-        StdOut.println("Linked List Implementation");
-        StdOut.println("Compares: " + llst.compares());
-        StdOut.println("Total Words: " + llst.words());
-        StdOut.println("Distinct Words: " + llst.size());
+        if (every > 0 && counters[0].words() % every == 0) {
+            reportSnapshot(counters, boards, start);
+        }
+    }
 
-        String max = "";
-        llst.put(max,0);
-        for(String word : llst.keys()) {
-            if (llst.get(word) > llst.get(max)) {
-                max = word;
+    //Print the words counted so far and each counter's running top list
+    private static void reportSnapshot(WordCounter[] counters, List<RunningTopK<String>> boards, long start) {
+        StdOut.println("Snapshot after " + counters[0].words() + " words, " + (System.nanoTime() - start) / 1000000 + " ms");
+        for (int i = 0; i < counters.length; i++) {
+            if (i > 0) {
+                StdOut.println();
             }
+            report(counters[i].name(), counters[i].compares(), counters[i].words(), counters[i].size(), boards.get(i).top());
         }
-        StdOut.println("Most Frequent Word: " + max + " " + llst.get(max));
-
         StdOut.println();
-        StdOut.println("Ordered Array Implementation");
-        StdOut.println("Compares: " + bsst.compares());
-        StdOut.println("Total Words: " + bsst.words());
-        StdOut.println("Distinct Words: " + bsst.size());
+    }
 
-        max = "";
-        bsst.put(max,0);
-        for(String word : bsst.keys()) {
-            if (bsst.get(word) > bsst.get(max)) {
-                max = word;
+    //Report on each counter in turn, separated by blank lines
+    private static void reportAll(WordCounter[] counters, int topK) {
+        for (int i = 0; i < counters.length; i++) {
+            if (i > 0) {
+                StdOut.println();
             }
+            TopK<String> top = new TopK<String>(topK);
+            counters[i].forEach(top);
+            report(counters[i].name(), counters[i].compares(), counters[i].words(), counters[i].size(), top);
         }
-        StdOut.println("Most Frequent Word: " + max + " " + bsst.get(max));
+    }
 
-        StdOut.println();
-        StdOut.println("Binary Search Tree Implementation");
-        StdOut.println("Compares: " + bstst.compares());
-        StdOut.println("Total Words: " + bstst.words());
-        StdOut.println("Distinct Words: " + bstst.size());
+    //Print the counters for one implementation, followed by its most frequent word or top words
+    private static void report(String name, int compares, int words, int size, TopK<String> top) {
+        StdOut.println(name);
+        StdOut.println("Compares: " + compares);
+        StdOut.println("Total Words: " + words);
+        StdOut.println("Distinct Words: " + size);
 
-        max = "";
-        bstst.put(max,0);
-        for(String word : bstst.keys()) {
-            if (bstst.get(word) > bstst.get(max)) {
-                max = word;
+        List<TopK.Entry<String>> results = top.results();
+        if (results.size() == 1) {
+            StdOut.println("Most Frequent Word: " + results.get(0).key() + " " + results.get(0).count());
+        } else if (results.size() > 1) {
+            StdOut.println("Top " + results.size() + " Words:");
+            for (int i = 0; i < results.size(); i++) {
+                StdOut.println((i+1) + ". " + results.get(i).key() + " " + results.get(i).count());
             }
         }
-        StdOut.println("Most Frequent Word: " + max + " " + bstst.get(max));
+    }
 
-        StdOut.println();
-        StdOut.println("Red-Black Tree Implementation");
-        StdOut.println("Compares: " + rbtst.compares());
-        StdOut.println("Total Words: " + rbtst.words());
-        StdOut.println("Distinct Words: " + rbtst.size());
+    //Count the file with one worker per whitespace-aligned chunk. Concurrent implementations are shared by
+    //every worker, the others get private tables per worker which are then merged into one
+    private static void countParallel(String fileName, int minLength, int threads, int topK, List<String> impls) {
+        long[] offsets = MappedIn.split(fileName, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<WordCounter[]>> partials = new ArrayList<Future<WordCounter[]>>();
 
-        max = "";
-        rbtst.put(max,0);
-        for(String word : rbtst.keys()) {
-            if (rbtst.get(word) > rbtst.get(max)) {
-                max = word;
+        WordCounter[] counters = new WordCounter[impls.size()];
+        int[] compares = new int[impls.size()];
+        int[] words = new int[impls.size()];
+        for (int j = 0; j < counters.length; j++) {
+            counters[j] = WordCounter.create(impls.get(j));
+        }
+
+        for (int i = 0; i < threads; i++) {
+            final long start = offsets[i];
+            final long end = offsets[i+1];
+            partials.add(pool.submit(() -> {
+                WordCounter[] partial = new WordCounter[impls.size()];
+                for (int j = 0; j < partial.length; j++) {
+                    partial[j] = counters[j].concurrent() ? counters[j] : WordCounter.create(impls.get(j));
+                }
+
+                //Close the file even if a table throws, so a failed run leaks no channel
+                try (MappedIn in = new MappedIn(fileName, start, end)) {
+                    while (in.readToken(minLength) >= 0) {
+                        countToken(partial, in, null);
+                    }
+                }
+                return partial;
+            }));
+        }
+
+        try {
+            for (Future<WordCounter[]> future : partials) {
+                WordCounter[] partial = future.get();
+                for (int j = 0; j < counters.length; j++) {
+                    WordCounter merged = counters[j];
+                    if (partial[j] == merged) {
+                        continue;
+                    }
+                    compares[j] += partial[j].compares();
+                    words[j] += partial[j].words();
+                    partial[j].forEach((word, count) -> merged.increment(word, count));
+                }
             }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("Parallel count failed", e);
+        } finally {
+            pool.shutdown();
         }
-        StdOut.println("Most Frequent Word: " + max + " " + rbtst.get(max));
 
-        StdOut.println();
-        StdOut.println("Chained Hash Table Implementation");
-        StdOut.println("Compares: " + cHashST.compares());
-        StdOut.println("Total Words: " + cHashST.words());
-        StdOut.println("Distinct Words: " + cHashST.size());
+        for (int j = 0; j < counters.length; j++) {
+            if (j > 0) {
+                StdOut.println();
+            }
+            TopK<String> top = new TopK<String>(topK);
+            counters[j].forEach(top);
+            //A shared table counted every word itself, a merged one only counted the merging
+            int total = counters[j].concurrent() ? counters[j].words() : words[j];
+            report(counters[j].name() + " (" + threads + " threads)", compares[j] + counters[j].compares(), total, counters[j].size(), top);
+        }
+    }
 
-        max = "";
-        cHashST.put(max,0);
-        for(String word : cHashST.keys()) {
-            if (cHashST.get(word) > cHashST.get(max)) {
-                max = word;
+    //Add one to the count of word, or of the current token of in when word is null
+    //Byte counters take the token straight from the mapped file, the rest share one decoded String
+    private static void countToken(WordCounter[] counters, MappedIn in, String word) {
+        String decoded = word;
+        for (WordCounter counter : counters) {
+            if (word == null && counter.countsBytes()) {
+                counter.incrementBytes(in.tokenBytes(), in.tokenStart(), in.tokenLength(), 1);
+            } else {
+                if (decoded == null) {
+                    decoded = in.tokenString();
+                }
+                counter.increment(decoded, 1);
             }
         }
-        StdOut.println("Most Frequent Word: " + max + " " + cHashST.get(max));
     }
-}
 
+    //Return the next word from standard input of at least minLength characters, or null once it is exhausted
+    private static String nextWord(int minLength) {
+        while (!StdIn.isEmpty()) {
+            String word = StdIn.readString();
+            if (word.length() >= minLength) {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    //Is more standard input ready to be read without blocking?
+    private static boolean inputWaiting() {
+        try {
+            return System.in.available() > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 
 /**
@@ -59,6 +61,31 @@ public class LLSymbolTable<Key, Value> {
         forIterating.add(newKey);
     }
 
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //Return the value the key holds afterwards, as Map.merge does
+    //Only walks the linked list once, unlike a contains/get/put sequence
+    public Value merge(Key newKey, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words++;
+
+        for (Node position = head; position != null; position = position.next) {
+            compares++;
+            if (newKey.equals(position.key)) {
+                return position.val = mergeFunction.apply(position.val, newVal);
+            }
+        }
+        head = new Node(newKey, newVal, head);
+        size++;
+        forIterating.add(newKey);
+        return newVal;
+    }
+
+    //Add a key known not to be in the list, without searching for it or counting it as a word
+    void insertNew(Key newKey, Value newVal) {
+        head = new Node(newKey, newVal, head);
+        size++;
+        forIterating.add(newKey);
+    }
+
     public void delete(Key toDelete) {
         if (contains(toDelete) == false) {
             throw new NoSuchElementException("Key does not exist in Symbol Table");
@@ -66,6 +93,13 @@ public class LLSymbolTable<Key, Value> {
         }
     }
 
+    //Pass every key and its value to action, walking the list once
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        for (Node position = head; position != null; position = position.next) {
+            action.accept(position.key, position.val);
+        }
+    }
+
     public Iterable<Key> keys() {
         return forIterating;
     }
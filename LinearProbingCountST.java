@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.function.ObjIntConsumer;
+
+/**
+ Counting Symbol Table implemented as a hash using linear probing
+ Keys are kept in one array and their counts in a parallel int array, so counting never boxes an Integer
+ or allocates a node per entry
+ Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
+ */
+public class LinearProbingCountST<Key> {
+    private static int init_capacity = 16;
+
+    private Key[] keys;
+    private int[] counts;
+    private int size = 0;
+    private int compares = 0;
+    private int words = 0;
+
+    public LinearProbingCountST(int capacity) {
+        //Round up to a power of two so the hash can be reduced with a mask
+        int tableSize = init_capacity;
+        while (tableSize < 2*capacity) {
+            tableSize *= 2;
+        }
+        keys = (Key[]) new Object[tableSize];
+        counts = new int[tableSize];
+    }
+
+    public LinearProbingCountST() {
+        this(init_capacity/2);
+    }
+
+    //Return an integer to be used as an array index based on the hashcode of the key
+    //The high bits are folded in since only the low bits survive the mask
+    private int hash(Key toHash) {
+        int h = toHash.hashCode();
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    //Rehash every key into a table of the new capacity
+    private void resize(int capacity) {
+        Key[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = (Key[]) new Object[capacity];
+        counts = new int[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int j = hash(oldKeys[i]);
+                while (keys[j] != null) {
+                    j = (j + 1) & (capacity - 1);
+                }
+                keys[j] = oldKeys[i];
+                counts[j] = oldCounts[i];
+            }
+        }
+    }
+
+    //Add one to the count of the key, inserting it if needed, and return the new count
+    public int increment(Key key) {
+        return increment(key, 1);
+    }
+
+    //Add amount to the count of the key, inserting it if needed, and return the new count
+    public int increment(Key key, int amount) {
+        words++;
+        int i = slot(key);
+        return counts[i] += amount;
+    }
+
+    //Replace the count of the key, inserting it if needed
+    public void put(Key key, int count) {
+        words++;
+        int i = slot(key);
+        counts[i] = count;
+    }
+
+    //Return the slot holding the key, inserting it with a count of 0 if needed
+    private int slot(Key key) {
+        //Keep the table at most half full so probe sequences stay short
+        if (2*(size+1) > keys.length) {
+            resize(2*keys.length);
+        }
+
+        int i = hash(key);
+        for (; keys[i] != null; i = (i + 1) & (keys.length - 1)) {
+            compares++;
+            if (key.equals(keys[i])) {
+                return i;
+            }
+        }
+        keys[i] = key;
+        counts[i] = 0;
+        size++;
+        return i;
+    }
+
+    //Return the slot holding the key, or -1 if it is not in the table
+    private int find(Key key) {
+        for (int i = hash(key); keys[i] != null; i = (i + 1) & (keys.length - 1)) {
+            compares++;
+            if (key.equals(keys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //Return the count of the key, or 0 if it is not in the table
+    public int count(Key key) {
+        int i = find(key);
+        return i < 0 ? 0 : counts[i];
+    }
+
+    //Is the key in the table, even with a count of 0?
+    public boolean contains(Key key) {
+        return find(key) >= 0;
+    }
+
+    //Pass every key and its count to action, without boxing the counts
+    public void forEach(ObjIntConsumer<? super Key> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    public Iterable<Key> keys() {
+        ArrayList<Key> forIterating = new ArrayList<Key>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                forIterating.add(keys[i]);
+            }
+        }
+        return forIterating;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int compares() {
+        return compares;
+    }
+
+    public int words() {
+        return words;
+    }
+
+
+    public static void main(String[] args) {
+        LinearProbingCountST<String> testCounter = new LinearProbingCountST<String>();
+
+        testCounter.increment("Three");
+        testCounter.increment("One");
+        testCounter.increment("Two");
+        testCounter.increment("Three");
+        testCounter.increment("One", 10);
+        testCounter.increment("Three");
+
+        for (String word : testCounter.keys()) {
+            StdOut.println(word + " " + testCounter.count(word));
+        }
+        StdOut.println("Size: " + testCounter.size());
+        StdOut.println("Count of Four: " + testCounter.count("Four"));
+    }
+}
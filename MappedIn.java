@@ -0,0 +1,234 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ Whitespace tokenizer that memory-maps a file and scans its bytes directly.
+ An alternative to StdIn.readString() that skips the Scanner regex and UTF-16 decoding,
+ and only builds a String for tokens that pass the minimum length filter.
+
+ Tokens are split on ASCII whitespace, which matches StdIn for ASCII and UTF-8 text
+ except for the rare multi-byte Unicode space characters.
+ */
+public class MappedIn implements AutoCloseable {
+    //Largest region of the file mapped at once, since a single mapping is limited to 2GB
+    private static final int MAX_REGION = 1 << 30;
+
+    private final FileChannel channel;
+    private final long end;       //File offset just past the last byte to read
+    private MappedByteBuffer buffer;
+    private long regionStart;     //File offset of the first byte in buffer
+    private int position;         //Current position within buffer
+    private int tokenStart;       //Position within buffer of the token being scanned
+    private int tokenLength = -1; //Length in bytes of the token last read by readToken
+    private byte[] scratch = new byte[64];
+
+    public MappedIn(String fileName) {
+        this(fileName, 0, Long.MAX_VALUE);
+    }
+
+    //Read only the bytes in [start, end) of the file, which should fall on token boundaries
+    public MappedIn(String fileName, long start, long end) {
+        try {
+            channel = new RandomAccessFile(fileName, "r").getChannel();
+            this.end = Math.min(end, channel.size());
+            map(Math.min(start, this.end));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + fileName, e);
+        }
+    }
+
+    //Split the file into count ranges of roughly equal size, each starting at a whitespace byte
+    //Returns count+1 offsets; range i is [offsets[i], offsets[i+1])
+    public static long[] split(String fileName, int count) {
+        try (FileChannel channel = new RandomAccessFile(fileName, "r").getChannel()) {
+            long fileSize = channel.size();
+            long[] offsets = new long[count+1];
+            offsets[count] = fileSize;
+
+            ByteBuffer oneByte = ByteBuffer.allocate(1);
+            for (int i = 1; i < count; i++) {
+                //Move the boundary forward until it lands on whitespace, so no token is cut in two
+                long offset = Math.max(offsets[i-1], fileSize / count * i);
+                while (offset < fileSize) {
+                    oneByte.clear();
+                    channel.read(oneByte, offset);
+                    if (isWhitespace(oneByte.get(0))) {
+                        break;
+                    }
+                    offset++;
+                }
+                offsets[i] = offset;
+            }
+            return offsets;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + fileName, e);
+        }
+    }
+
+    //Map the region of the file starting at start
+    private void map(long start) throws IOException {
+        long length = Math.min(MAX_REGION, end - start);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        regionStart = start;
+        position = 0;
+    }
+
+    //Is this byte a token separator? Mirrors \p{javaWhitespace} for single byte characters
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+    }
+
+    //Make sure the byte at position is mapped, remapping from tokenStart if the region is exhausted
+    //Returns false once the end of the file is reached
+    private boolean ensureMapped() {
+        if (position < buffer.limit()) {
+            return true;
+        }
+        if (regionStart + buffer.limit() >= end) {
+            return false;
+        }
+        try {
+            int offset = position - tokenStart;
+            map(regionStart + tokenStart);
+            position = offset;
+            tokenStart = 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map input", e);
+        }
+        return position < buffer.limit();
+    }
+
+    //Skip past whitespace, returns false if there are no more tokens
+    private boolean skipWhitespace() {
+        while (true) {
+            tokenStart = position;
+            if (!ensureMapped()) {
+                return false;
+            }
+            if (!isWhitespace(buffer.get(position))) {
+                return true;
+            }
+            position++;
+        }
+    }
+
+    //Is the input empty (except possibly for whitespace)?
+    public boolean isEmpty() {
+        return !skipWhitespace();
+    }
+
+    //Read and return the next token
+    public String readString() {
+        String token = readString(0);
+        if (token == null) {
+            throw new NoSuchElementException("Input is empty");
+        }
+        return token;
+    }
+
+    //Read and return the next token with at least minLength characters, or null at the end of the input
+    //Shorter tokens are skipped without being decoded
+    public String readString(int minLength) {
+        if (readToken(minLength) < 0) {
+            return null;
+        }
+        return tokenString();
+    }
+
+    //Move to the next token with at least minLength characters and return its length in bytes,
+    //or -1 at the end of the input. The token stays in tokenBytes() until the input is read again
+    public int readToken(int minLength) {
+        while (skipWhitespace()) {
+            tokenStart = position;
+            while (ensureMapped() && !isWhitespace(buffer.get(position))) {
+                position++;
+            }
+
+            //A UTF-8 token never has fewer bytes than characters, so short byte runs can be skipped outright,
+            //and never has more than three bytes per character, so long ones pass without counting
+            int length = position - tokenStart;
+            if (length < minLength) {
+                continue;
+            }
+            if (length < 3*minLength && characters(tokenStart, length) < minLength) {
+                continue;
+            }
+
+            tokenLength = length;
+            return length;
+        }
+        tokenLength = -1;
+        return -1;
+    }
+
+    //Count the UTF-16 characters the UTF-8 bytes in [start, start+length) decode to
+    //Every byte except a continuation byte starts a character, and four byte sequences need a surrogate pair
+    private int characters(int start, int length) {
+        int count = 0;
+        for (int i = start; i < start + length; i++) {
+            byte b = buffer.get(i);
+            if ((b & 0xC0) != 0x80) {
+                count++;
+            }
+            if ((b & 0xF8) == 0xF0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //Buffer holding the bytes of the token last read by readToken, from tokenStart() for tokenLength() bytes
+    public ByteBuffer tokenBytes() {
+        return buffer;
+    }
+
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenLength() {
+        return tokenLength;
+    }
+
+    //Decode the token last read by readToken
+    public String tokenString() {
+        if (tokenLength < 0) {
+            throw new NoSuchElementException("No token has been read");
+        }
+        return decode(tokenStart, tokenLength);
+    }
+
+    private String decode(int start, int length) {
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not close input", e);
+        }
+    }
+
+
+    //Test Client
+    public static void main(String[] args) {
+        MappedIn in = new MappedIn(args[0]);
+        int tokens = 0;
+        while (!in.isEmpty()) {
+            StdOut.println(in.readString());
+            tokens++;
+        }
+        StdOut.println("Tokens: " + tokens);
+        in.close();
+    }
+}
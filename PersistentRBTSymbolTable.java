@@ -0,0 +1,611 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ Symbol Table implemented with a Left Leaning Red Black Tree that can take snapshots in constant time
+ Each node is stamped with the version of the table that created it. A table only changes nodes
+ carrying its own version, and copies any other node before changing it, so an update copies at
+ most the path from the root to the changed node. snapshot() hands out the current root under a
+ new version and moves this table on to another, after which neither can change the nodes they share
+ A snapshot can be read from another thread while this table keeps being updated
+ Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
+ */
+public class PersistentRBTSymbolTable<Key extends Comparable<Key>, Value> {
+    private static final AtomicInteger versions = new AtomicInteger();
+
+    private Node root;
+    private int version;
+    private Value merged;   //Set by insert to the value the key ends up with
+    //Snapshots are read from several threads at once, so their compares are added up without a race
+    private final LongAdder compares = new LongAdder();
+    private int words = 0;
+
+    //For Red-Black implementation
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    private class Node {
+        private Key key;
+        private Value val;
+        private Node left, right;
+        private int size;
+        private boolean color; //Color of the link from the parent to this node
+        private final int version;
+
+        public Node(Key key, Value val, int size, boolean color, int version) {
+            this.key = key;
+            this.val = val;
+            this.size = size;
+            this.color = color;
+            this.version = version;
+        }
+    }
+
+    public PersistentRBTSymbolTable() {
+        version = versions.incrementAndGet();
+    }
+
+    private PersistentRBTSymbolTable(Node root, int compares, int words) {
+        this();
+        this.root = root;
+        this.compares.add(compares);
+        this.words = words;
+    }
+
+    //Return a table holding the current contents, without copying them
+    //Later updates to either table are not seen by the other
+    public PersistentRBTSymbolTable<Key, Value> snapshot() {
+        PersistentRBTSymbolTable<Key, Value> frozen = new PersistentRBTSymbolTable<Key, Value>(root, compares(), words);
+        version = versions.incrementAndGet();
+        return frozen;
+    }
+
+    //Return a node this table may change: the node itself if this table created it, otherwise a copy
+    private Node mutable(Node x) {
+        if (x == null || x.version == version) {
+            return x;
+        }
+        Node copy = new Node(x.key, x.val, x.size, x.color, version);
+        copy.left = x.left;
+        copy.right = x.right;
+        return copy;
+    }
+
+
+    /**********
+     * Search/Retrieval Methods
+     **********/
+
+    //Return the value with the matching searchKey
+    //The compares are counted locally and added once, so readers of a snapshot share no hot counter
+    public Value get(Key searchKey) {
+        Node current = root;
+        int seen = 0;
+        while (true) {
+            seen++;
+
+            if (current == null) {
+                compares.add(seen);
+                return null;
+            }
+
+            int cmp = searchKey.compareTo(current.key);
+
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                compares.add(seen);
+                return current.val;
+            }
+        }
+    }
+
+    public boolean contains(Key searchKey) {
+        return get(searchKey) != null;
+    }
+
+    public Key min() {
+        if (isEmpty()) throw new NoSuchElementException("Red Black tree is empty");
+        return min(root).key;
+    }
+
+    private Node min(Node current) {
+        while (current.left != null) {
+            current = current.left;
+        }
+        return current;
+    }
+
+    public Key max() {
+        if (isEmpty()) throw new NoSuchElementException("Red Black tree is empty");
+        Node current = root;
+        while (current.right != null) {
+            current = current.right;
+        }
+        return current.key;
+    }
+
+    //Return the largest key <= searchKey, or null if there is none
+    public Key floor(Key searchKey) {
+        Node floor = null;
+        Node current = root;
+
+        while (current != null) {
+            int cmp = searchKey.compareTo(current.key);
+            if (cmp == 0) {
+                return current.key;
+            } else if (cmp < 0) {
+                current = current.left;
+            } else {
+                floor = current;
+                current = current.right;
+            }
+        }
+        return floor == null ? null : floor.key;
+    }
+
+    //Return the smallest key >= searchKey, or null if there is none
+    public Key ceiling(Key searchKey) {
+        Node ceiling = null;
+        Node current = root;
+
+        while (current != null) {
+            int cmp = searchKey.compareTo(current.key);
+            if (cmp == 0) {
+                return current.key;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                ceiling = current;
+                current = current.left;
+            }
+        }
+        return ceiling == null ? null : ceiling.key;
+    }
+
+    //Find the key with rank N (meaning the key where exactly N other keys are smaller)
+    public Key select(int selectN) {
+        Node current = root;
+
+        while (current != null) {
+            int t = size(current.left);
+            if (t > selectN) {
+                current = current.left;
+            } else if (t < selectN) {
+                selectN -= t + 1;
+                current = current.right;
+            } else {
+                return current.key;
+            }
+        }
+        return null;
+    }
+
+    //How many keys are < searchKey?
+    public int rank(Key searchKey) {
+        int rank = 0;
+        Node current = root;
+
+        while (current != null) {
+            int cmp = searchKey.compareTo(current.key);
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                rank += 1 + size(current.left);
+                current = current.right;
+            } else {
+                return rank + size(current.left);
+            }
+        }
+        return rank;
+    }
+
+
+    /**********
+     * Insertion Methods
+     **********/
+
+    public void put(Key key, Value newVal) {
+        merge(key, newVal, null);
+    }
+
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //A null mergeFunction replaces the value, as put does. Return the value the key holds afterwards
+    public Value merge(Key key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words++;
+        root = insert(root, key, newVal, mergeFunction);
+        if (root.color == RED) {
+            root = mutable(root);
+            root.color = BLACK;
+        }
+        return merged;
+    }
+
+    private Node insert(Node current, Key key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        compares.increment();
+
+        if (current == null) {
+            merged = newVal;
+            return new Node(key, newVal, 1, RED, version);
+        }
+
+        int cmp = key.compareTo(current.key);
+        current = mutable(current);
+
+        if (cmp < 0) {
+            current.left = insert(current.left, key, newVal, mergeFunction);
+        } else if (cmp > 0) {
+            current.right = insert(current.right, key, newVal, mergeFunction);
+        } else {
+            current.val = merged = mergeFunction == null ? newVal : mergeFunction.apply(current.val, newVal);
+            return current;
+        }
+
+        return balance(current);
+    }
+
+
+    /**********
+     * Deletion Methods
+     **********/
+
+    public void deleteMin() {
+        if (isEmpty()) throw new NoSuchElementException("Red Black tree is empty");
+
+        root = redRoot();
+        root = deleteMin(root);
+        blackRoot();
+    }
+
+    private Node deleteMin(Node current) {
+        if (current.left == null) {
+            return null;
+        }
+
+        current = mutable(current);
+        if (!isRed(current.left) && !isRed(current.left.left)) {
+            current = moveRedLeft(current);
+        }
+
+        current.left = deleteMin(current.left);
+
+        return balance(current);
+    }
+
+    public void deleteMax() {
+        if (isEmpty()) throw new NoSuchElementException("Red Black tree is empty");
+
+        root = redRoot();
+        root = deleteMax(root);
+        blackRoot();
+    }
+
+    private Node deleteMax(Node current) {
+        current = mutable(current);
+        if (isRed(current.left)) {
+            current = rotateRight(current);
+        }
+
+        if (current.right == null) {
+            return null;
+        }
+
+        if (!isRed(current.right) && !isRed(current.right.left)) {
+            current = moveRedRight(current);
+        }
+
+        current.right = deleteMax(current.right);
+
+        return balance(current);
+    }
+
+    //Delete the passed in key, if it exists
+    public void delete(Key toDelete) {
+        if (!contains(toDelete)) {
+            return;
+        }
+
+        root = redRoot();
+        root = delete(root, toDelete);
+        blackRoot();
+    }
+
+    private Node delete(Node current, Key toDelete) {
+        current = mutable(current);
+
+        if (toDelete.compareTo(current.key) < 0) {
+            //Move the red link down the left subtree, if needed
+            if (!isRed(current.left) && !isRed(current.left.left)) {
+                current = moveRedLeft(current);
+            }
+
+            current.left = delete(current.left, toDelete);
+        } else {
+            //If the left link is red, rotate it to the right
+            if (isRed(current.left)) {
+                current = rotateRight(current);
+            }
+
+            //If the key matches and there's no right child, delete it
+            if (toDelete.compareTo(current.key) == 0 && current.right == null) {
+                return null;
+            }
+
+            //Move the red link down to the right, if needed
+            if (!isRed(current.right) && !isRed(current.right.left)) {
+                current = moveRedRight(current);
+            }
+
+            //If the key matches, replace it with it's smallest successor, and then delete it's smallest successor
+            if (toDelete.compareTo(current.key) == 0) {
+                Node successor = min(current.right);
+                current.key = successor.key;
+                current.val = successor.val;
+                current.right = deleteMin(current.right);
+            } else {
+                current.right = delete(current.right, toDelete);
+            }
+        }
+
+        return balance(current);
+    }
+
+    //If both children of root are black, set root to red, as deletion expects
+    private Node redRoot() {
+        if (isRed(root.left) || isRed(root.right)) {
+            return root;
+        }
+        Node red = mutable(root);
+        red.color = RED;
+        return red;
+    }
+
+    private void blackRoot() {
+        if (isRed(root)) {
+            root = mutable(root);
+            root.color = BLACK;
+        }
+    }
+
+
+    /**********
+     * General Utility Methods
+     **********/
+
+    //Pass every key and its value to action, in key order
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        InOrderIterator nodes = new InOrderIterator(null, null);
+        while (nodes.hasNext()) {
+            Node x = nodes.nextNode();
+            action.accept(x.key, x.val);
+        }
+    }
+
+    //Iterate over the keys in order, lazily
+    //Iterate over a snapshot, rather than this table, while other threads keep updating it
+    public Iterable<Key> keys() {
+        return keys(null, null);
+    }
+
+    //Iterate over the keys in [lo, hi] in order, lazily, where a null bound leaves that end open
+    public Iterable<Key> keys(Key lo, Key hi) {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                final InOrderIterator nodes = new InOrderIterator(lo, hi);
+                return new Iterator<Key>() {
+                    public boolean hasNext() {
+                        return nodes.hasNext();
+                    }
+
+                    public Key next() {
+                        return nodes.nextNode().key;
+                    }
+                };
+            }
+        };
+    }
+
+    //How many keys are in [lo, hi]?
+    public int size(Key lo, Key hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        } else if (contains(hi)) {
+            return rank(hi) - rank(lo) + 1;
+        } else {
+            return rank(hi) - rank(lo);
+        }
+    }
+
+    //In-order traversal with an explicit stack, optionally limited to [lo, hi]
+    private class InOrderIterator {
+        private final ArrayDeque<Node> stack = new ArrayDeque<Node>();
+        private final Key lo, hi;
+
+        InOrderIterator(Key lo, Key hi) {
+            this.lo = lo;
+            this.hi = hi;
+            pushLeft(root);
+        }
+
+        //Push the left spine, skipping over nodes that fall below lo
+        private void pushLeft(Node current) {
+            while (current != null) {
+                if (lo != null && lo.compareTo(current.key) > 0) {
+                    current = current.right;
+                } else {
+                    stack.push(current);
+                    current = current.left;
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return !stack.isEmpty() && (hi == null || hi.compareTo(stack.peek().key) >= 0);
+        }
+
+        Node nextNode() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more keys");
+            }
+            Node current = stack.pop();
+            pushLeft(current.right);
+            return current;
+        }
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    private int size(Node x) {
+        return x == null ? 0 : x.size;
+    }
+
+    public int compares() {
+        return compares.intValue();
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+
+    /**********
+     * Red-Black Helper Functions
+     * Each takes a node this table may already change and copies any child it changes
+     **********/
+
+    private boolean isRed(Node x) {
+        return x != null && x.color == RED;
+    }
+
+    //Make right-leaning link lean left
+    private Node rotateLeft(Node toRotate) {
+        Node temp = mutable(toRotate.right);
+        toRotate.right = temp.left;
+        temp.left = toRotate;
+        temp.color = toRotate.color;
+        toRotate.color = RED;
+        temp.size = toRotate.size;
+        toRotate.size = 1 + size(toRotate.left) + size(toRotate.right);
+        return temp;
+    }
+
+    //Make left-leaning link lean right
+    private Node rotateRight(Node toRotate) {
+        Node temp = mutable(toRotate.left);
+        toRotate.left = temp.right;
+        temp.right = toRotate;
+        temp.color = toRotate.color;
+        toRotate.color = RED;
+        temp.size = toRotate.size;
+        toRotate.size = 1 + size(toRotate.left) + size(toRotate.right);
+        return temp;
+    }
+
+    //Flip the colors of a node and its two children
+    private void flipColors(Node toFlip) {
+        toFlip.left = mutable(toFlip.left);
+        toFlip.right = mutable(toFlip.right);
+        toFlip.color = !toFlip.color;
+        toFlip.left.color = !toFlip.left.color;
+        toFlip.right.color = !toFlip.right.color;
+    }
+
+    //Assume that current is red and both current.left and current.left.left are black,
+    //make current.left or one of it's children red
+    private Node moveRedLeft(Node current) {
+        flipColors(current);
+
+        if (isRed(current.right.left)) {
+            current.right = rotateRight(current.right);
+            current = rotateLeft(current);
+            flipColors(current);
+        }
+
+        return current;
+    }
+
+    //Assume that current is red and both current.right and current.right.left are black,
+    //make current.right or one of it's children red
+    private Node moveRedRight(Node current) {
+        flipColors(current);
+
+        if (isRed(current.left.left)) {
+            current = rotateRight(current);
+            flipColors(current);
+        }
+
+        return current;
+    }
+
+    //Ensure red-black balance
+    private Node balance(Node current) {
+        if (isRed(current.right) && !isRed(current.left)) {
+            current = rotateLeft(current);
+        }
+
+        if (isRed(current.left) && isRed(current.left.left)) {
+            current = rotateRight(current);
+        }
+
+        if (isRed(current.left) && isRed(current.right)) {
+            flipColors(current);
+        }
+
+        current.size = size(current.left) + size(current.right) + 1;
+
+        return current;
+    }
+
+
+    /**********
+     * Test Client
+     **********/
+
+    public static void main(String[] args) {
+        PersistentRBTSymbolTable<Integer, String> testRBT = new PersistentRBTSymbolTable<Integer, String>();
+
+        testRBT.put(3, "Three");
+        testRBT.put(1, "One");
+        testRBT.put(2, "Two");
+        testRBT.put(4, "Four");
+        testRBT.put(10, "Ten");
+
+        PersistentRBTSymbolTable<Integer, String> frozen = testRBT.snapshot();
+
+        testRBT.put(1, "OneOne");
+        testRBT.delete(3);
+        testRBT.deleteMax();
+        testRBT.put(5, "Five");
+
+        StdOut.println("Live table:");
+        for (Integer myInt : testRBT.keys()) {
+            StdOut.println(myInt + " " + testRBT.get(myInt));
+        }
+        StdOut.println("Size: " + testRBT.size());
+        StdOut.println();
+
+        StdOut.println("Snapshot:");
+        for (Integer myInt : frozen.keys()) {
+            StdOut.println(myInt + " " + frozen.get(myInt));
+        }
+        StdOut.println("Size: " + frozen.size());
+        StdOut.println("Floor of 5: " + frozen.floor(5));
+        StdOut.println("Ceiling of 5: " + frozen.ceiling(5));
+        StdOut.println("Key at rank 3: " + frozen.select(3));
+        StdOut.println("Rank of key 10: " + frozen.rank(10));
+        StdOut.println("Number of keys between 2 and 7: " + frozen.size(2, 7));
+    }
+}
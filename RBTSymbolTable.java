@@ -1,5 +1,10 @@
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 /**
  Symbol Table implemented with a Left Leaning Red Black Tree
@@ -10,13 +15,16 @@ public class RBTSymbolTable<Key extends Comparable<Key>, Value> {
     private Node root;
     private int compares = 0;
     private int words = 0;
-    ArrayList<Key> forIterating = new ArrayList();
+
+    //Nodes visited by the current insertion and the direction taken from each, reused between calls
+    private Node[] path = (Node[]) new RBTSymbolTable.Node[64];
+    private boolean[] wentLeft = new boolean[64];
 
     //For Red-Black implementation
     private static final boolean RED = true;
     private static final boolean BLACK = false;
 
-    private class Node {
+    private class Node implements Map.Entry<Key, Value> {
         private Key key;
         private Value val;
         private Node left, right;
@@ -29,6 +37,75 @@ public class RBTSymbolTable<Key extends Comparable<Key>, Value> {
             this.size = size;
             this.color = color;
         }
+
+        public Key getKey() {
+            return key;
+        }
+
+        public Value getValue() {
+            return val;
+        }
+
+        public Value setValue(Value newVal) {
+            Value oldVal = val;
+            val = newVal;
+            return oldVal;
+        }
+    }
+
+
+    public RBTSymbolTable() {
+    }
+
+    //Build a balanced tree directly from keys already in strictly ascending order and their values, in linear time
+    public RBTSymbolTable(Key[] sortedKeys, Value[] sortedVals) {
+        BSSymbolTable.checkSorted(sortedKeys, sortedVals);
+
+        //Use the tallest 2-3 tree whose levels can all be filled, its leftover keys go into 3-nodes
+        int height = 0;
+        while ((2L << height) - 1 <= sortedKeys.length) {
+            height++;
+        }
+
+        root = build(sortedKeys, sortedVals, 0, sortedKeys.length-1, height);
+    }
+
+    //Build the subtree for keys[lo..hi] as a 2-3 tree with the given black height, where a 3-node
+    //becomes a BLACK node with a RED left child. Uses a 2-node whenever its two children can hold the keys
+    private Node build(Key[] sortedKeys, Value[] sortedVals, int lo, int hi, int height) {
+        int count = hi - lo + 1;
+        if (count == 0) {
+            return null;
+        }
+
+        long childCapacity = 1;
+        for (int i = 1; i < height; i++) {
+            childCapacity *= 3;
+        }
+        childCapacity -= 1;
+
+        if (count - 1 <= 2*childCapacity) {
+            int mid = lo + (count-1) / 2;
+            Node current = new Node(sortedKeys[mid], sortedVals[mid], count, BLACK);
+            current.left = build(sortedKeys, sortedVals, lo, mid-1, height-1);
+            current.right = build(sortedKeys, sortedVals, mid+1, hi, height-1);
+            return current;
+        }
+
+        //Split the remaining keys as evenly as possible between the three children
+        int third = (count - 2) / 3;
+        int remainder = (count - 2) % 3;
+        int small = lo + third + (remainder > 0 ? 1 : 0);
+        int large = small + 1 + third + (remainder > 1 ? 1 : 0);
+
+        Node left = new Node(sortedKeys[small], sortedVals[small], large - lo, RED);
+        left.left = build(sortedKeys, sortedVals, lo, small-1, height-1);
+        left.right = build(sortedKeys, sortedVals, small+1, large-1, height-1);
+
+        Node current = new Node(sortedKeys[large], sortedVals[large], count, BLACK);
+        current.left = left;
+        current.right = build(sortedKeys, sortedVals, large+1, hi, height-1);
+        return current;
     }
 
 
@@ -36,27 +113,30 @@ public class RBTSymbolTable<Key extends Comparable<Key>, Value> {
      * Search/Retrieval Methods
      **********/
 
-    //Return the node with the matching searchKey
+    //Return the value with the matching searchKey
     public Value get(Key searchKey) {
         return get(root, searchKey);
     }
 
-    public Value get(Node current, Key searchKey) {
-        compares++;
+    //Iteratively search the subtree rooted at current
+    private Value get(Node current, Key searchKey) {
+        while (true) {
+            compares++;
 
-        if (current == null) {
-            return null;
-        }
+            if (current == null) {
+                return null;
+            }
 
-        int cmp = searchKey.compareTo(current.key);
+            int cmp = searchKey.compareTo(current.key);
 
-        //Use compare value to traverse through tree
-        if (cmp < 0) {
-            return get(current.left, searchKey);
-        } else if (cmp > 0) {
-            return get(current.right, searchKey);
-        } else {
-            return current.val;
+            //Use compare value to traverse through tree
+            if (cmp < 0) {
+                current = current.left;
+            } else if (cmp > 0) {
+                current = current.right;
+            } else {
+                return current.val;
+            }
         }
     }
 
@@ -200,47 +280,88 @@ public class RBTSymbolTable<Key extends Comparable<Key>, Value> {
      * Insertion Methods
      **********/
 
-    //Put works by recursively either creating a new node if needed, or assigning each node to itself
+    //Put either updates the value of an existing node or inserts a new RED node and rebalances
     public void put(Key key, Value newVal) {
         words++;
-        root = put(root, key, newVal);
-        root.color = BLACK;
+        Node found = findOrInsert(key, newVal);
+        if (found != null) {
+            found.val = newVal;
+        }
     }
 
-    //Recursively inserts a new node, then rotates as needed, passing RED links up the chain
-    public Node put(Node current, Key searchKey, Value newVal) {
-        compares++;
-
-        if (current == null) {
-            return new Node(searchKey, newVal, 1, RED);
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //Return the value the key holds afterwards, as Map.merge does
+    //Only descends the tree once, unlike a contains/get/put sequence
+    public Value merge(Key key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words++;
+        Node found = findOrInsert(key, newVal);
+        if (found == null) {
+            return newVal;
         }
+        return found.val = mergeFunction.apply(found.val, newVal);
+    }
 
-        int cmp = searchKey.compareTo(current.key);
+    //Iteratively search for searchKey, returning its node if it exists
+    //Otherwise insert it as a new RED leaf, then walk back up the recorded path rotating and
+    //flipping colors to pass RED links up the chain, and return null
+    private Node findOrInsert(Key searchKey, Value newVal) {
+        int depth = 0;
+        Node current = root;
 
-        //Use compare value to traverse through tree
-        if (cmp < 0) {
-            current.left = put(current.left, searchKey, newVal);
-        } else if (cmp > 0) {
-            current.right = put(current.right, searchKey, newVal);
-        } else {
-            current.val = newVal;
-        }
+        while (current != null) {
+            compares++;
+            int cmp = searchKey.compareTo(current.key);
 
-        //Fix RED links
-        if (isRed(current.right) && !isRed(current.left)) {
-            current = rotateLeft(current);
-        }
-        if (isRed(current.left) && isRed(current.left.left)) {
-            current = rotateRight(current);
-        }
-        if (isRed(current.left) && isRed(current.right)) {
-            flipColors(current);
+            if (cmp == 0) {
+                return current;
+            }
+
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, 2*depth);
+                wentLeft = Arrays.copyOf(wentLeft, 2*depth);
+            }
+            path[depth] = current;
+            wentLeft[depth] = cmp < 0;
+            depth++;
+
+            if (cmp < 0) {
+                current = current.left;
+            } else {
+                current = current.right;
+            }
         }
+        compares++;
 
-        current.size = size(current.left) + size(current.right) +1;
+        //Relink each parent to its rebalanced child, from the new leaf back up to the root
+        Node child = new Node(searchKey, newVal, 1, RED);
+        for (int i = depth-1; i >= 0; i--) {
+            current = path[i];
+            path[i] = null;
 
-        return current;
+            if (wentLeft[i]) {
+                current.left = child;
+            } else {
+                current.right = child;
+            }
 
+            //Fix RED links
+            if (isRed(current.right) && !isRed(current.left)) {
+                current = rotateLeft(current);
+            }
+            if (isRed(current.left) && isRed(current.left.left)) {
+                current = rotateRight(current);
+            }
+            if (isRed(current.left) && isRed(current.right)) {
+                flipColors(current);
+            }
+
+            current.size = size(current.left) + size(current.right) +1;
+            child = current;
+        }
+
+        root = child;
+        root.color = BLACK;
+        return null;
     }
 
 
@@ -368,27 +489,116 @@ public class RBTSymbolTable<Key extends Comparable<Key>, Value> {
      * General Utility Methods
      **********/
 
+    //Pass every key and its value to action, in key order
+    //Walks the tree with an explicit stack, so no list of keys is built
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        ArrayDeque<Node> stack = new ArrayDeque<Node>();
+        Node current = root;
+
+        while (current != null || !stack.isEmpty()) {
+            while (current != null) {
+                stack.push(current);
+                current = current.left;
+            }
+            current = stack.pop();
+            action.accept(current.key, current.val);
+            current = current.right;
+        }
+    }
+
+    //Iterate over the keys in order, lazily, holding only the path to the next key
     public Iterable<Key> keys() {
-        forIterating = new ArrayList();
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                return new InOrderIterator<Key>() {
+                    public Key next() {
+                        return nextNode().key;
+                    }
+                };
+            }
+        };
+    }
+
+    //Iterate over the keys in [lo, hi] in order, lazily
+    //Only the nodes inside the range and the paths down to its ends are visited
+    public Iterable<Key> keys(Key lo, Key hi) {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                return new InOrderIterator<Key>(lo, hi) {
+                    public Key next() {
+                        return nextNode().key;
+                    }
+                };
+            }
+        };
+    }
 
-        inOrder(root);
+    //How many keys are in [lo, hi]? Computed from rank, so it never visits the keys in between
+    public int size(Key lo, Key hi) {
+        if (lo.compareTo(hi) > 0) {
+            return 0;
+        } else if (contains(hi)) {
+            return rank(hi) - rank(lo) + 1;
+        } else {
+            return rank(hi) - rank(lo);
+        }
+    }
 
-        return forIterating;
+    //Iterate over the key-value pairs in order, lazily
+    //Each entry is the tree node itself, so no entry objects are allocated
+    public Iterable<Map.Entry<Key, Value>> entries() {
+        return new Iterable<Map.Entry<Key, Value>>() {
+            public Iterator<Map.Entry<Key, Value>> iterator() {
+                return new InOrderIterator<Map.Entry<Key, Value>>() {
+                    public Map.Entry<Key, Value> next() {
+                        return nextNode();
+                    }
+                };
+            }
+        };
     }
 
-    private Key inOrder (Node current) {
-        if(current.left != null) {
-            inOrder(current.left);
+    //In-order traversal driven by an explicit stack of the left spine still to visit
+    //Every iterator has its own stack, so any number of iterations can run at once
+    //Optionally limited to [lo, hi], where a null bound leaves that end open
+    private abstract class InOrderIterator<Item> implements Iterator<Item> {
+        private final ArrayDeque<Node> stack = new ArrayDeque<Node>();
+        private final Key lo, hi;
+
+        InOrderIterator() {
+            this(null, null);
         }
 
-        forIterating.add(current.key);
+        InOrderIterator(Key lo, Key hi) {
+            this.lo = lo;
+            this.hi = hi;
+            pushLeft(root);
+        }
 
-        if (current.right != null) {
-            inOrder(current.right);
+        //Push the left spine, skipping over nodes that fall below lo
+        private void pushLeft(Node current) {
+            while (current != null) {
+                if (lo != null && lo.compareTo(current.key) > 0) {
+                    current = current.right;
+                } else {
+                    stack.push(current);
+                    current = current.left;
+                }
+            }
         }
 
+        public boolean hasNext() {
+            return !stack.isEmpty() && (hi == null || hi.compareTo(stack.peek().key) >= 0);
+        }
 
-        return current.key;
+        Node nextNode() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more keys");
+            }
+            Node current = stack.pop();
+            pushLeft(current.right);
+            return current;
+        }
     }
 
     public int size() {
@@ -520,6 +730,10 @@ public class RBTSymbolTable<Key extends Comparable<Key>, Value> {
             StdOut.println(e.getMessage());
         }
 
+        for (Integer myInt : testRBT.keys()) {
+            StdOut.println("Empty tree has key " + myInt);
+        }
+
 
         testRBT.put(3, "Three");
         testRBT.put(1, "One");
@@ -577,6 +791,26 @@ public class RBTSymbolTable<Key extends Comparable<Key>, Value> {
         StdOut.println("Key at rank 5: " + testRBT.select(5));
         StdOut.println("Rank of key 3: " + testRBT.rank(3));
         StdOut.println("Rank of key 10: " + testRBT.rank(10));
+        StdOut.print("Keys between 2 and 7:");
+        for (Integer myInt : testRBT.keys(2, 7)) {
+            StdOut.print(" " + myInt);
+        }
+        StdOut.println();
+        StdOut.println("Number of keys between 2 and 7: " + testRBT.size(2, 7));
+        StdOut.println();
+
+        for (Map.Entry<Integer, String> entry : testRBT.entries()) {
+            StdOut.println(entry.getKey() + " " + entry.getValue());
+        }
+        StdOut.println();
+
+        RBTSymbolTable<Integer, String> bulkRBT = new RBTSymbolTable<Integer, String>(
+            new Integer[] {1, 2, 3, 4, 5}, new String[] {"One", "Two", "Three", "Four", "Five"});
+        for (Integer myInt : bulkRBT.keys()) {
+            StdOut.println(myInt + " " + bulkRBT.get(myInt));
+        }
+        StdOut.println("Size: " + bulkRBT.size());
+        StdOut.println("Key at rank 3: " + bulkRBT.select(3));
 
 
     }
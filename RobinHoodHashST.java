@@ -0,0 +1,279 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ Symbol Table implemented as a hash using linear probing with Robin Hood displacement
+ A key being inserted takes the slot of any key that sits closer to its own home slot, which then moves
+ on in its place, so every key ends up about as far from home as the others. A search can stop as soon as
+ it passes a key closer to home than it is, and deletion shifts the following keys back rather than
+ leaving a tombstone. The hash of every key is kept next to it, so most mismatches skip equals()
+ Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
+ */
+public class RobinHoodHashST<Key, Value> {
+    private static final int init_capacity = 16;
+
+    private Key[] keys;
+    private Value[] vals;
+    private int[] hashes;
+    private int size = 0;
+    private int compares = 0;
+    private int words = 0;
+
+    public RobinHoodHashST(int capacity) {
+        //Round up to a power of two so the hash can be reduced with a mask
+        int tableSize = init_capacity;
+        while (tableSize < 2*capacity) {
+            tableSize *= 2;
+        }
+        keys = (Key[]) new Object[tableSize];
+        vals = (Value[]) new Object[tableSize];
+        hashes = new int[tableSize];
+    }
+
+    public RobinHoodHashST() {
+        this(init_capacity/2);
+    }
+
+    //Return the hashcode of the key with the high bits folded in, since only the low bits survive the mask
+    private int hash(Key toHash) {
+        int h = toHash.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    //How far is the key in slot i from the slot its hash points to?
+    private int distance(int i) {
+        return (i - hashes[i]) & (keys.length - 1);
+    }
+
+    //Rehash every key into a table of the new capacity
+    private void resize(int capacity) {
+        Key[] oldKeys = keys;
+        Value[] oldVals = vals;
+        int[] oldHashes = hashes;
+        keys = (Key[]) new Object[capacity];
+        vals = (Value[]) new Object[capacity];
+        hashes = new int[capacity];
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insertNew(oldKeys[i], oldVals[i], oldHashes[i], oldHashes[i] & (capacity - 1), 0);
+            }
+        }
+    }
+
+
+    /**********
+     * Search/Retrieval Methods
+     **********/
+
+    //Return the slot holding searchKey, or -1 if it is not in the table
+    private int find(Key searchKey) {
+        int h = hash(searchKey);
+        int mask = keys.length - 1;
+
+        for (int i = h & mask, d = 0; keys[i] != null; i = (i + 1) & mask, d++) {
+            compares++;
+
+            //Every key past one closer to home than searchKey would be is closer still, so searchKey is not here
+            if (distance(i) < d) {
+                return -1;
+            }
+            if (hashes[i] == h && searchKey.equals(keys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Value get(Key searchKey) {
+        int i = find(searchKey);
+        return i < 0 ? null : vals[i];
+    }
+
+    public boolean contains(Key searchKey) {
+        return find(searchKey) >= 0;
+    }
+
+
+    /**********
+     * Insertion Methods
+     **********/
+
+    public void put(Key newKey, Value newVal) {
+        merge(newKey, newVal, null);
+    }
+
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //A null mergeFunction replaces the value, as put does. Return the value the key holds afterwards
+    public Value merge(Key newKey, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        words++;
+
+        int h = hash(newKey);
+        int mask = keys.length - 1;
+
+        int i = h & mask;
+        int d = 0;
+        for (; keys[i] != null; i = (i + 1) & mask, d++) {
+            compares++;
+
+            if (hashes[i] == h && newKey.equals(keys[i])) {
+                vals[i] = mergeFunction == null ? newVal : mergeFunction.apply(vals[i], newVal);
+                return vals[i];
+            }
+
+            //A key closer to home than newKey would be means newKey is not in the table, and belongs here
+            if (distance(i) < d) {
+                break;
+            }
+        }
+
+        //Keep the table at most three quarters full, which Robin Hood probing tolerates well
+        //Only a new key can fill it, so a hit never pays for the check, and after growing the
+        //key is placed by probing again from its home in the larger table
+        if (4*(size+1) > 3*keys.length) {
+            resize(2*keys.length);
+            i = h & (keys.length - 1);
+            d = 0;
+        }
+        insertNew(newKey, newVal, h, i, d);
+        return newVal;
+    }
+
+    //Insert a key known not to be in the table, starting at slot i which is d slots from its home,
+    //and displacing any key closer to home on the way
+    private void insertNew(Key key, Value val, int h, int i, int d) {
+        int mask = keys.length - 1;
+
+        for (; keys[i] != null; i = (i + 1) & mask, d++) {
+            int resident = distance(i);
+            if (resident < d) {
+                //Swap in the key further from home and carry on inserting the one it displaced
+                Key tempKey = keys[i];
+                Value tempVal = vals[i];
+                int tempHash = hashes[i];
+                keys[i] = key;
+                vals[i] = val;
+                hashes[i] = h;
+                key = tempKey;
+                val = tempVal;
+                h = tempHash;
+                d = resident;
+            }
+        }
+
+        keys[i] = key;
+        vals[i] = val;
+        hashes[i] = h;
+        size++;
+    }
+
+
+    /**********
+     * Deletion Methods
+     **********/
+
+    //Delete the key, if it exists, shifting each following key that is not at home back one slot
+    public void delete(Key toDelete) {
+        int i = find(toDelete);
+        if (i < 0) {
+            return;
+        }
+
+        int mask = keys.length - 1;
+        int next = (i + 1) & mask;
+        while (keys[next] != null && distance(next) > 0) {
+            keys[i] = keys[next];
+            vals[i] = vals[next];
+            hashes[i] = hashes[next];
+            i = next;
+            next = (next + 1) & mask;
+        }
+
+        keys[i] = null;
+        vals[i] = null;
+        hashes[i] = 0;
+        size--;
+    }
+
+
+    /**********
+     * General Utility Methods
+     **********/
+
+    //Pass every key and its value to action
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], vals[i]);
+            }
+        }
+    }
+
+    public Iterable<Key> keys() {
+        ArrayList<Key> forIterating = new ArrayList<Key>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                forIterating.add(keys[i]);
+            }
+        }
+        return forIterating;
+    }
+
+    //Largest distance of any key from its home slot
+    public int maxDistance() {
+        int max = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                max = Math.max(max, distance(i));
+            }
+        }
+        return max;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int compares() {
+        return compares;
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    public static void main(String[] args) {
+        RobinHoodHashST<Integer, String> testHash = new RobinHoodHashST<Integer, String>();
+
+        testHash.put(3, "Three");
+        testHash.put(1, "One");
+        testHash.put(2, "Two");
+        testHash.put(4, "Four");
+        testHash.put(1, "OneOne");
+        testHash.put(10, "Ten");
+        testHash.delete(2);
+
+        for (Integer myInt : testHash.keys()) {
+            StdOut.println(myInt + " " + testHash.get(myInt));
+        }
+        StdOut.println("Size: " + testHash.size());
+        StdOut.println("Contains 2: " + testHash.contains(2));
+
+        //Fill to just under three quarters of 2^16 slots with random keys and report how far they stray
+        RobinHoodHashST<String, Integer> random = new RobinHoodHashST<String, Integer>(1 << 15);
+        Random generator = new Random(42);
+        for (int i = 0; i < 49000; i++) {
+            random.put("key" + generator.nextInt(1000000), i);
+        }
+        StdOut.println("Random keys: " + random.size());
+        StdOut.println("Longest distance from home: " + random.maxDistance());
+    }
+}
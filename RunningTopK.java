@@ -0,0 +1,99 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ Keeps the k most frequent keys of a count that only ever goes up, updated as each key is counted
+ A key can only join the board by passing the smallest count on it, so almost every update is rejected
+ by one comparison, and reading the board costs O(k) however many distinct keys have been counted
+ The board is a min-heap with an index from each key to its position, so an update that does get in
+ costs O(log k), which keeps a board of a thousand keys as cheap as a short one
+ */
+public class RunningTopK<Key> {
+    private final Key[] keys;       //Heap of keys at positions 1 to size, smallest count at the root
+    private final int[] counts;
+    private final Map<Key, Integer> index = new HashMap<Key, Integer>();   //Heap position of each key
+    private int size = 0;
+
+    public RunningTopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        keys = (Key[]) new Object[k + 1];
+        counts = new int[k + 1];
+    }
+
+    //Could a key whose count just reached count be on the board? Ties keep the key already there
+    public boolean admits(int count) {
+        return size < keys.length - 1 || count > counts[1];
+    }
+
+    //Record that the count of key has gone up to count
+    public void update(Key key, int count) {
+        if (!admits(count)) {
+            return;
+        }
+
+        //A count only goes up, so a key already on the board can only move away from the root
+        Integer position = index.get(key);
+        if (position != null) {
+            counts[position] = count;
+            sink(position);
+            return;
+        }
+
+        if (size < keys.length - 1) {
+            size++;
+            keys[size] = key;
+            counts[size] = count;
+            index.put(key, size);
+            swim(size);
+        } else {
+            index.remove(keys[1]);
+            keys[1] = key;
+            counts[1] = count;
+            index.put(key, 1);
+            sink(1);
+        }
+    }
+
+    private void swim(int k) {
+        while (k > 1 && counts[k/2] > counts[k]) {
+            exch(k, k/2);
+            k = k/2;
+        }
+    }
+
+    private void sink(int k) {
+        while (2*k <= size) {
+            int j = 2*k;
+            if (j < size && counts[j+1] < counts[j]) {
+                j++;
+            }
+            if (counts[k] <= counts[j]) {
+                break;
+            }
+            exch(k, j);
+            k = j;
+        }
+    }
+
+    private void exch(int i, int j) {
+        Key tempKey = keys[i];
+        keys[i] = keys[j];
+        keys[j] = tempKey;
+        int tempCount = counts[i];
+        counts[i] = counts[j];
+        counts[j] = tempCount;
+        index.put(keys[i], i);
+        index.put(keys[j], j);
+    }
+
+    //Return the board as a TopK, most frequent first
+    public TopK<Key> top() {
+        TopK<Key> top = new TopK<Key>(keys.length - 1);
+        for (int i = 1; i <= size; i++) {
+            top.accept(keys[i], counts[i]);
+        }
+        return top;
+    }
+}
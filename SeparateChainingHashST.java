@@ -1,14 +1,26 @@
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 /**
  Symbol Table implemented as a hash using an array of linked lists
  Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
  */
 public class SeparateChainingHashST<Key, Value> {
+    //Grow the table once the average chain holds this many keys
+    private static final int MAX_CHAIN_LENGTH = 4;
+
     private int tableSize;
 
+    //Kept at the table level so they can be read without visiting every chain
+    private int size = 0;
+    private int compares = 0;
+    private int words = 0;
+
     private LLSymbolTable<Key, Value>[] hashST;
 
+    //Every key in insertion order, appended to as keys are added
     ArrayList<Key> forIterating = new ArrayList();
 
     public SeparateChainingHashST() {
@@ -30,57 +42,90 @@ public class SeparateChainingHashST<Key, Value> {
         return ((toHash.hashCode() & 0x7fffffff) % tableSize);
     }
 
-    public void put(Key newKey, Value newVal) {
-        hashST[hash(newKey)].put(newKey, newVal);
-    }
+    //Rehash every key into a new array of chains
+    private void resize(int capacity) {
+        LLSymbolTable<Key, Value>[] oldST = hashST;
 
-    public boolean contains(Key newKey) {
-        return hashST[hash(newKey)].contains(newKey);
+        tableSize = capacity;
+        hashST = (LLSymbolTable<Key, Value>[]) new LLSymbolTable[capacity];
+        for (int i=0; i < capacity; i++) {
+            hashST[i] = new LLSymbolTable();
+        }
+
+        for (LLSymbolTable<Key, Value> chain : oldST) {
+            for (Key key : chain.keys()) {
+                hashST[hash(key)].insertNew(key, chain.get(key));
+            }
+        }
     }
 
-    public Value get(Key searchKey) {
-        return (Value) hashST[hash(searchKey)].get(searchKey);
+    public void put(Key newKey, Value newVal) {
+        LLSymbolTable<Key, Value> chain = hashST[hash(newKey)];
+        int chainSize = chain.size();
+        int chainCompares = chain.compares();
+        chain.put(newKey, newVal);
+        afterInsert(chain, newKey, chainSize, chainCompares);
     }
 
-    public Iterable<Key> keys() {
-        forIterating = new ArrayList();
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //Return the value the key holds afterwards
+    public Value merge(Key newKey, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        LLSymbolTable<Key, Value> chain = hashST[hash(newKey)];
+        int chainSize = chain.size();
+        int chainCompares = chain.compares();
+        Value merged = chain.merge(newKey, newVal, mergeFunction);
+        afterInsert(chain, newKey, chainSize, chainCompares);
+        return merged;
+    }
 
-        for (int i=0; i < tableSize; i++) {
-            for (Key key : hashST[i].keys()) {
-                forIterating.add(key);
+    //Update the table level counters after a put or merge into chain,
+    //then double the table if the average chain has grown too long
+    private void afterInsert(LLSymbolTable<Key, Value> chain, Key newKey, int chainSize, int chainCompares) {
+        words++;
+        compares += chain.compares() - chainCompares;
+
+        if (chain.size() > chainSize) {
+            size++;
+            forIterating.add(newKey);
+            if (size >= MAX_CHAIN_LENGTH*tableSize) {
+                resize(2*tableSize);
             }
-
         }
-        return forIterating;
     }
 
-    public int size() {
-        int size = 0;
+    public boolean contains(Key newKey) {
+        return get(newKey) != null;
+    }
 
+    public Value get(Key searchKey) {
+        LLSymbolTable<Key, Value> chain = hashST[hash(searchKey)];
+        int chainCompares = chain.compares();
+        Value val = chain.get(searchKey);
+        compares += chain.compares() - chainCompares;
+        return val;
+    }
+
+    //Pass every key and its value to action, one chain at a time
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
         for (int i=0; i < tableSize; i++) {
-            size += hashST[i].size();
+            hashST[i].forEach(action);
         }
+    }
 
+    //A read-only view, so callers cannot change the list the table keeps its keys in
+    public Iterable<Key> keys() {
+        return Collections.unmodifiableList(forIterating);
+    }
+
+    public int size() {
         return size;
     }
 
     public int compares() {
-        int compares = 0;
-
-        for (int i=0; i < tableSize; i++) {
-            compares += hashST[i].compares();
-        }
-
         return compares;
     }
 
     public int words() {
-        int words = 0;
-
-        for (int i=0; i < tableSize; i++) {
-            words += hashST[i].words();
-        }
-
         return words;
     }
 
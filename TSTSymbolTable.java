@@ -0,0 +1,299 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ String Symbol Table implemented as a Ternary Search Trie
+ Each node holds one character and links to smaller, equal (next character) and larger characters,
+ so a search compares one character per node and never re-compares the prefix it has already matched.
+ Keys sharing a prefix share its nodes, which also answers prefix queries without scanning every key
+ Based on Algorithms, 4th Ed by Robert Sedgewick | Kevin Wayne
+ */
+public class TSTSymbolTable<Value> {
+
+    private Node root;
+    private int size = 0;
+    private int compares = 0;
+    private int words = 0;
+
+    private class Node {
+        private char c;
+        private Node left, mid, right;
+        private Value val;  //Value of the key ending at this node, if any
+
+        public Node(char c) {
+            this.c = c;
+        }
+    }
+
+
+    /**********
+     * Search/Retrieval Methods
+     **********/
+
+    //Return the value with the matching searchKey
+    public Value get(String searchKey) {
+        Node x = find(root, searchKey, 0);
+        return x == null ? null : x.val;
+    }
+
+    public boolean contains(String searchKey) {
+        return get(searchKey) != null;
+    }
+
+    //Iteratively follow key from its character d, starting at current
+    //Return the node holding the last character of key, or null if there is none
+    private Node find(Node current, String key, int d) {
+        if (key.length() == 0) {
+            throw new IllegalArgumentException("Key must not be empty");
+        }
+
+        while (current != null) {
+            compares++;
+            char c = key.charAt(d);
+
+            if (c < current.c) {
+                current = current.left;
+            } else if (c > current.c) {
+                current = current.right;
+            } else if (d < key.length() - 1) {
+                current = current.mid;
+                d++;
+            } else {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    //Return the longest key in the table that is a prefix of query, or null if there is none
+    public String longestPrefixOf(String query) {
+        int length = 0;
+        Node current = root;
+        int d = 0;
+
+        while (current != null && d < query.length()) {
+            compares++;
+            char c = query.charAt(d);
+
+            if (c < current.c) {
+                current = current.left;
+            } else if (c > current.c) {
+                current = current.right;
+            } else {
+                d++;
+                if (current.val != null) {
+                    length = d;
+                }
+                current = current.mid;
+            }
+        }
+        return length == 0 ? null : query.substring(0, length);
+    }
+
+
+    /**********
+     * Insertion Methods
+     **********/
+
+    public void put(String key, Value newVal) {
+        merge(key, newVal, null);
+    }
+
+    //If the key exists, combine its value with newVal using mergeFunction, otherwise insert newVal
+    //A null mergeFunction replaces the value, as put does. Return the value the key holds afterwards
+    public Value merge(String key, Value newVal, BiFunction<? super Value, ? super Value, ? extends Value> mergeFunction) {
+        if (key.length() == 0) {
+            throw new IllegalArgumentException("Key must not be empty");
+        }
+        //A null value marks a node that ends no key, so it cannot be stored
+        if (newVal == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        words++;
+
+        if (root == null) {
+            root = new Node(key.charAt(0));
+        }
+
+        //Walk down the trie, adding a node wherever the key leaves it
+        Node current = root;
+        int d = 0;
+        while (true) {
+            compares++;
+            char c = key.charAt(d);
+
+            if (c < current.c) {
+                if (current.left == null) {
+                    current.left = new Node(c);
+                }
+                current = current.left;
+            } else if (c > current.c) {
+                if (current.right == null) {
+                    current.right = new Node(c);
+                }
+                current = current.right;
+            } else if (d < key.length() - 1) {
+                d++;
+                if (current.mid == null) {
+                    current.mid = new Node(key.charAt(d));
+                }
+                current = current.mid;
+            } else {
+                break;
+            }
+        }
+
+        if (current.val == null) {
+            size++;
+            current.val = newVal;
+        } else if (mergeFunction == null) {
+            current.val = newVal;
+        } else {
+            Value merged = mergeFunction.apply(current.val, newVal);
+            if (merged == null) {
+                throw new IllegalArgumentException("Merged value must not be null");
+            }
+            current.val = merged;
+        }
+        return current.val;
+    }
+
+
+    /**********
+     * General Utility Methods
+     **********/
+
+    //Pass every key and its value to action, in key order
+    public void forEach(BiConsumer<? super String, ? super Value> action) {
+        forEach(root, new StringBuilder(), action);
+    }
+
+    //A node still to be handled by forEach, with the length of the prefix above it
+    //It is expanded into its left link, itself and its right link before it is visited
+    private class Frame {
+        private final Node node;
+        private final int depth;
+        private final boolean expanded;
+
+        private Frame(Node node, int depth, boolean expanded) {
+            this.node = node;
+            this.depth = depth;
+            this.expanded = expanded;
+        }
+    }
+
+    //Pass every key below current to action in order, each one starting with prefix
+    //Uses an explicit stack, since the left and right links of a trie built from sorted keys form long chains
+    private void forEach(Node current, StringBuilder prefix, BiConsumer<? super String, ? super Value> action) {
+        ArrayDeque<Frame> stack = new ArrayDeque<Frame>();
+        int base = prefix.length();
+        if (current != null) {
+            stack.push(new Frame(current, base, false));
+        }
+
+        while (!stack.isEmpty()) {
+            Frame frame = stack.pop();
+            Node x = frame.node;
+
+            if (!frame.expanded) {
+                //Pushed in reverse, so the left link comes off the stack first and the right link last
+                if (x.right != null) {
+                    stack.push(new Frame(x.right, frame.depth, false));
+                }
+                stack.push(new Frame(x, frame.depth, true));
+                if (x.left != null) {
+                    stack.push(new Frame(x.left, frame.depth, false));
+                }
+                continue;
+            }
+
+            prefix.setLength(frame.depth);
+            prefix.append(x.c);
+            if (x.val != null) {
+                action.accept(prefix.toString(), x.val);
+            }
+            if (x.mid != null) {
+                stack.push(new Frame(x.mid, frame.depth + 1, false));
+            }
+        }
+        prefix.setLength(base);
+    }
+
+    //All keys, in order
+    public Iterable<String> keys() {
+        ArrayList<String> forIterating = new ArrayList<String>(size);
+        forEach((key, val) -> forIterating.add(key));
+        return forIterating;
+    }
+
+    //All keys starting with prefix, in order, found without visiting the rest of the trie
+    public Iterable<String> keysWithPrefix(String prefix) {
+        ArrayList<String> forIterating = new ArrayList<String>();
+        if (prefix.length() == 0) {
+            forEach((key, val) -> forIterating.add(key));
+            return forIterating;
+        }
+
+        Node x = find(root, prefix, 0);
+        if (x == null) {
+            return forIterating;
+        }
+        if (x.val != null) {
+            forIterating.add(prefix);
+        }
+        forEach(x.mid, new StringBuilder(prefix), (key, val) -> forIterating.add(key));
+        return forIterating;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int compares() {
+        return compares;
+    }
+
+    public int words() {
+        return words;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    /**********
+     * Test Client
+     **********/
+
+    public static void main(String[] args) {
+        TSTSymbolTable<Integer> testTST = new TSTSymbolTable<Integer>();
+
+        testTST.put("she", 0);
+        testTST.put("sells", 1);
+        testTST.put("sea", 2);
+        testTST.put("shells", 3);
+        testTST.put("by", 4);
+        testTST.put("the", 5);
+        testTST.put("sea", 6);
+        testTST.put("shore", 7);
+        testTST.merge("the", 10, Integer::sum);
+
+        for (String key : testTST.keys()) {
+            StdOut.println(key + " " + testTST.get(key));
+        }
+        StdOut.println("Size: " + testTST.size());
+
+        StdOut.print("Keys with prefix sh:");
+        for (String key : testTST.keysWithPrefix("sh")) {
+            StdOut.print(" " + key);
+        }
+        StdOut.println();
+
+        StdOut.println("Longest prefix of shellsort: " + testTST.longestPrefixOf("shellsort"));
+        StdOut.println("Longest prefix of quicksort: " + testTST.longestPrefixOf("quicksort"));
+        StdOut.println("Contains shell: " + testTST.contains("shell"));
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ Collects the k most frequent keys from a stream of (key, count) pairs using a bounded min-heap
+ Pass it to a symbol table's forEach to find the top k entries in one pass with no extra lookups
+ */
+public class TopK<Key> implements BiConsumer<Key, Integer>, ObjIntConsumer<Key> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int k;
+    private final PriorityQueue<Entry<Key>> heap;
+    private long seen = 0;
+
+    //Smallest count first; among equal counts the one seen last is evicted first
+    private static final Comparator<Entry<?>> LEAST_FREQUENT_FIRST = new Comparator<Entry<?>>() {
+        public int compare(Entry<?> a, Entry<?> b) {
+            if (a.count != b.count) {
+                return Integer.compare(a.count, b.count);
+            }
+            return Long.compare(b.order, a.order);
+        }
+    };
+
+    public static class Entry<Key> {
+        private final Key key;
+        private final int count;
+        private final long order;
+
+        private Entry(Key key, int count, long order) {
+            this.key = key;
+            this.count = count;
+            this.order = order;
+        }
+
+        public Key key() {
+            return key;
+        }
+
+        public int count() {
+            return count;
+        }
+    }
+
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        this.k = k;
+        //A large k over few distinct keys should not allocate k slots up front, the heap grows as needed
+        this.heap = new PriorityQueue<Entry<Key>>(Math.min(k, INITIAL_CAPACITY), LEAST_FREQUENT_FIRST);
+    }
+
+    //Offer a key and its count, keeping it only if it is among the k largest seen so far
+    //Ties keep whichever key was offered first
+    public void accept(Key key, int count) {
+        long order = seen++;
+        if (heap.size() < k) {
+            heap.add(new Entry<Key>(key, count, order));
+        } else if (count > heap.peek().count) {
+            heap.poll();
+            heap.add(new Entry<Key>(key, count, order));
+        }
+    }
+
+    public void accept(Key key, Integer count) {
+        accept(key, count.intValue());
+    }
+
+    //Return the collected entries, most frequent first
+    public List<Entry<Key>> results() {
+        List<Entry<Key>> sorted = new ArrayList<Entry<Key>>(heap);
+        Collections.sort(sorted, Collections.reverseOrder(LEAST_FREQUENT_FIRST));
+        return sorted;
+    }
+}
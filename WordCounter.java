@@ -0,0 +1,220 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ Word counting view of a Symbol Table implementation, so clients can drive and report on
+ any of them the same way
+ */
+public interface WordCounter {
+    //Short names accepted by create, in the order FrequencyCounter reports them
+    String[] IMPLEMENTATIONS = {"ll", "bs", "bsb", "bst", "rb", "arb", "prb", "btree", "skip", "tst", "hash", "chash", "rh", "lp", "clp", "arena"};
+
+    String name();
+
+    //Add amount to the count of word, inserting it if needed, and return the new count
+    int increment(String word, int amount);
+
+    //Replace the count of word
+    void put(String word, int count);
+
+    //Return the count of word, or 0 if it has not been seen
+    int count(String word);
+
+    Iterable<String> keys();
+
+    //Pass every word and its count to action
+    void forEach(ObjIntConsumer<? super String> action);
+
+    int compares();
+
+    int words();
+
+    int size();
+
+    //Does this counter take words as UTF-8 bytes through incrementBytes, so no String is built per token?
+    default boolean countsBytes() {
+        return false;
+    }
+
+    //Add amount to the count of the UTF-8 word in bytes [start, start+length), and return the new count
+    //Counters that count Strings decode the bytes and increment the String
+    default int incrementBytes(ByteBuffer bytes, int start, int length, int amount) {
+        byte[] word = new byte[length];
+        bytes.get(start, word, 0, length);
+        return increment(new String(word, StandardCharsets.UTF_8), amount);
+    }
+
+    //Can many threads increment this counter at once? If so parallel counting shares one of them
+    default boolean concurrent() {
+        return false;
+    }
+
+    //Return an empty counter backed by the implementation with the given short name
+    static WordCounter create(String impl) {
+        switch (impl) {
+            case "ll": {
+                LLSymbolTable<String, Integer> st = new LLSymbolTable<String, Integer>();
+                return new TableCounter("Linked List Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "bs": {
+                BSSymbolTable<String, Integer> st = new BSSymbolTable<String, Integer>();
+                return new TableCounter("Ordered Array Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "bsb": {
+                BSSymbolTable<String, Integer> st = new BSSymbolTable<String, Integer>(2, 1024);
+                return new TableCounter("Buffered Ordered Array Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "bst": {
+                BSTSymbolTable<String, Integer> st = new BSTSymbolTable<String, Integer>();
+                return new TableCounter("Binary Search Tree Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "rb": {
+                RBTSymbolTable<String, Integer> st = new RBTSymbolTable<String, Integer>();
+                return new TableCounter("Red-Black Tree Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "arb": {
+                ArrayRBTSymbolTable<String, Integer> st = new ArrayRBTSymbolTable<String, Integer>();
+                return new TableCounter("Array Red-Black Tree Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "prb": {
+                PersistentRBTSymbolTable<String, Integer> st = new PersistentRBTSymbolTable<String, Integer>();
+                return new TableCounter("Persistent Red-Black Tree Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "btree": {
+                BTreeSymbolTable<String, Integer> st = new BTreeSymbolTable<String, Integer>();
+                return new TableCounter("B-Tree Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "skip": {
+                ConcurrentSkipListSymbolTable<String, Integer> st = new ConcurrentSkipListSymbolTable<String, Integer>();
+                return new TableCounter("Concurrent Skip List Implementation", true,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "tst": {
+                TSTSymbolTable<Integer> st = new TSTSymbolTable<Integer>();
+                return new TableCounter("Ternary Search Trie Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "hash": {
+                SeparateChainingHashST<String, Integer> st = new SeparateChainingHashST<String, Integer>();
+                return new TableCounter("Chained Hash Table Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "chash": {
+                ConcurrentSeparateChainingHashST<String, Integer> st = new ConcurrentSeparateChainingHashST<String, Integer>();
+                return new TableCounter("Striped Concurrent Hash Table Implementation", true,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            case "rh": {
+                RobinHoodHashST<String, Integer> st = new RobinHoodHashST<String, Integer>();
+                return new TableCounter("Robin Hood Hash Table Implementation", false,
+                    st::merge, st::put, st::get, st::keys, st::forEach, st::compares, st::words, st::size);
+            }
+            //The counting tables keep primitive counts rather than Integer values, so they get their own adapters
+            case "lp":
+                return new WordCounter() {
+                    LinearProbingCountST<String> st = new LinearProbingCountST<String>();
+                    public String name() { return "Linear Probing Counter Implementation"; }
+                    public int increment(String word, int amount) { return st.increment(word, amount); }
+                    public void put(String word, int count) { st.put(word, count); }
+                    public int count(String word) { return st.count(word); }
+                    public Iterable<String> keys() { return st.keys(); }
+                    public void forEach(ObjIntConsumer<? super String> action) { st.forEach(action); }
+                    public int compares() { return st.compares(); }
+                    public int words() { return st.words(); }
+                    public int size() { return st.size(); }
+                };
+            case "clp":
+                return new WordCounter() {
+                    ConcurrentLinearProbingCountST<String> st = new ConcurrentLinearProbingCountST<String>();
+                    public String name() { return "Lock-Free Linear Probing Counter Implementation"; }
+                    public int increment(String word, int amount) { return (int) st.increment(word, amount); }
+                    public void put(String word, int count) { st.put(word, count); }
+                    public int count(String word) { return (int) st.count(word); }
+                    public Iterable<String> keys() { return st.keys(); }
+                    public void forEach(ObjIntConsumer<? super String> action) { st.forEach((word, count) -> action.accept(word, (int) count)); }
+                    public int compares() { return st.compares(); }
+                    public int words() { return st.words(); }
+                    public int size() { return st.size(); }
+                    public boolean concurrent() { return true; }
+                };
+            case "arena":
+                return new WordCounter() {
+                    ByteArenaCountST st = new ByteArenaCountST();
+                    public String name() { return "Byte Arena Counter Implementation"; }
+                    public int increment(String word, int amount) { return st.increment(word, amount); }
+                    public void put(String word, int count) { st.put(word, count); }
+                    public int count(String word) { return st.count(word); }
+                    public Iterable<String> keys() { return st.keys(); }
+                    public void forEach(ObjIntConsumer<? super String> action) { st.forEach(action); }
+                    public int compares() { return st.compares(); }
+                    public int words() { return st.words(); }
+                    public int size() { return st.size(); }
+                    public boolean countsBytes() { return true; }
+                    public int incrementBytes(ByteBuffer bytes, int start, int length, int amount) { return st.increment(bytes, start, length, amount); }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown implementation " + impl);
+        }
+    }
+
+    //Counter over a Symbol Table with Integer values, driven through references to the table's own methods
+    final class TableCounter implements WordCounter {
+        interface Merge {
+            Integer merge(String word, Integer amount, BiFunction<? super Integer, ? super Integer, ? extends Integer> mergeFunction);
+        }
+
+        private final String name;
+        private final boolean concurrent;
+        private final Merge merge;
+        private final BiConsumer<String, Integer> put;
+        private final Function<String, Integer> get;
+        private final Supplier<Iterable<String>> keys;
+        private final Consumer<BiConsumer<? super String, ? super Integer>> forEach;
+        private final IntSupplier compares, words, size;
+
+        TableCounter(String name, boolean concurrent, Merge merge, BiConsumer<String, Integer> put,
+                     Function<String, Integer> get, Supplier<Iterable<String>> keys,
+                     Consumer<BiConsumer<? super String, ? super Integer>> forEach,
+                     IntSupplier compares, IntSupplier words, IntSupplier size) {
+            this.name = name;
+            this.concurrent = concurrent;
+            this.merge = merge;
+            this.put = put;
+            this.get = get;
+            this.keys = keys;
+            this.forEach = forEach;
+            this.compares = compares;
+            this.words = words;
+            this.size = size;
+        }
+
+        public String name() { return name; }
+        //merge hands back the new count, so it costs no second lookup, and Integer::sum captures nothing
+        public int increment(String word, int amount) {
+            return merge.merge(word, amount, Integer::sum);
+        }
+        public void put(String word, int count) { put.accept(word, count); }
+        public int count(String word) { Integer count = get.apply(word); return count == null ? 0 : count; }
+        public Iterable<String> keys() { return keys.get(); }
+        public void forEach(ObjIntConsumer<? super String> action) { forEach.accept(action::accept); }
+        public int compares() { return compares.getAsInt(); }
+        public int words() { return words.getAsInt(); }
+        public int size() { return size.getAsInt(); }
+        public boolean concurrent() { return concurrent; }
+    }
+}
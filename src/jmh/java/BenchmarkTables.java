@@ -0,0 +1,67 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import bench.Counter;
+import bench.Lookup;
+import bench.PrefixIndex;
+
+/**
+ Factories the benchmarks in package bench reach by reflection, since they cannot name
+ the default package Symbol Tables themselves
+ */
+public class BenchmarkTables {
+    //A WordCounter backed by the implementation with the given short name
+    public static Counter counter(String impl) {
+        WordCounter counter = WordCounter.create(impl);
+        return new Counter() {
+            public void put(String word, int count) { counter.put(word, count); }
+            public int count(String word) { return counter.count(word); }
+            public int increment(String word, int amount) { return counter.increment(word, amount); }
+            public Iterable<String> keys() { return counter.keys(); }
+            public int size() { return counter.size(); }
+        };
+    }
+
+    //A BSSymbolTable bulk loaded with the sorted, distinct vocabulary, searched in the named mode
+    public static Lookup lookup(String[] vocabulary, String search) {
+        Integer[] counts = new Integer[vocabulary.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = i + 1;
+        }
+        BSSymbolTable<String, Integer> st = new BSSymbolTable<String, Integer>(vocabulary, counts, BSSymbolTable.Search.valueOf(search));
+        return word -> {
+            Integer count = st.get(word);
+            return count == null ? 0 : count;
+        };
+    }
+
+    //A ternary search trie, or a red-black tree answering prefixes with a key range, holding every token
+    public static PrefixIndex prefixIndex(String impl, String[] tokens) {
+        if (impl.equals("tst")) {
+            TSTSymbolTable<Integer> tst = new TSTSymbolTable<Integer>();
+            for (String token : tokens) {
+                tst.merge(token, 1, Integer::sum);
+            }
+            return tst::keysWithPrefix;
+        } else if (impl.equals("rb")) {
+            RBTSymbolTable<String, Integer> rbt = new RBTSymbolTable<String, Integer>();
+            for (String token : tokens) {
+                rbt.merge(token, 1, Integer::sum);
+            }
+            return prefix -> rbt.keys(prefix, prefix + Character.MAX_VALUE);
+        }
+        throw new IllegalArgumentException("No prefix queries for " + impl);
+    }
+
+    //Every whitespace separated word of the file, in order
+    public static String[] readWords(String fileName) {
+        List<String> words = new ArrayList<String>();
+        MappedIn in = new MappedIn(fileName);
+        String word;
+        while ((word = in.readString(1)) != null) {
+            words.add(word);
+        }
+        in.close();
+        return words.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,18 @@
+package bench;
+
+/**
+ The operations of a WordCounter that the benchmarks drive
+ WordCounter is in the default package, which a benchmark package cannot import, so
+ BenchmarkTables adapts it to this interface
+ */
+public interface Counter {
+    void put(String word, int count);
+
+    int count(String word);
+
+    int increment(String word, int amount);
+
+    Iterable<String> keys();
+
+    int size();
+}
@@ -0,0 +1,9 @@
+package bench;
+
+/**
+ A frozen table of counts, searched by one of the BSSymbolTable search modes
+ */
+public interface Lookup {
+    //Return the count of word, or 0 if it is not in the table
+    int get(String word);
+}
@@ -0,0 +1,8 @@
+package bench;
+
+/**
+ A table that can list every key starting with a prefix
+ */
+public interface PrefixIndex {
+    Iterable<String> keysWithPrefix(String prefix);
+}
@@ -0,0 +1,250 @@
+package bench;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ JMH benchmarks for the Symbol Table implementations
+ put, get, increment and keys run over the words of a text file (as read and sorted) and over
+ synthetic uniform and Zipf distributed keys. put and increment start from an empty table every
+ iteration, get and keys run against a table holding every token. Then lookups into a frozen
+ vocabulary compare the BSSymbolTable search modes, and prefix queries on the ternary search trie
+ are compared with range queries on the red-black tree
+ Run with "gradle jmh", which adds the gc profiler for the allocation rate and bytes per operation
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolTableBenchmark {
+    private static final int SYNTHETIC_TOKENS = 100000;
+    private static final int SYNTHETIC_KEYS = 10000;
+
+    //The tokens to count, shared by every implementation
+    @State(Scope.Benchmark)
+    public static class Workload {
+        @Param({"text", "sorted", "uniform", "zipf"})
+        public String workload;
+
+        //Relative to the tables.dir system property, which gradle jmh sets to the project directory
+        @Param("tale.txt")
+        public String file;
+
+        String[] tokens;
+
+        @Setup(Level.Trial)
+        public void load() {
+            Random random = new Random(42);
+            String path = Paths.get(System.getProperty("tables.dir", "")).resolve(file).toString();
+            if (workload.equals("text")) {
+                tokens = Tables.readWords(path);
+            } else if (workload.equals("sorted")) {
+                tokens = Tables.readWords(path);
+                Arrays.sort(tokens);
+            } else if (workload.equals("uniform")) {
+                tokens = uniform(SYNTHETIC_TOKENS, SYNTHETIC_KEYS, random);
+            } else if (workload.equals("zipf")) {
+                tokens = zipf(SYNTHETIC_TOKENS, SYNTHETIC_KEYS, random);
+            } else {
+                throw new IllegalArgumentException("Unknown workload " + workload);
+            }
+        }
+    }
+
+    //The implementation under test, by its WordCounter short name
+    @State(Scope.Benchmark)
+    public static class Implementation {
+        @Param({"ll", "bs", "bsb", "bst", "rb", "arb", "prb", "btree", "skip", "tst", "hash", "chash", "rh", "lp", "clp", "arena"})
+        public String impl;
+    }
+
+    //A table emptied before every iteration, fed the tokens in order, wrapping around at the end
+    @State(Scope.Thread)
+    public static class Empty {
+        Counter counter;
+        String[] tokens;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void clear(Implementation implementation, Workload workload) {
+            counter = Tables.counter(implementation.impl);
+            tokens = workload.tokens;
+            next = 0;
+        }
+
+        String nextToken() {
+            String token = tokens[next];
+            if (++next == tokens.length) {
+                next = 0;
+            }
+            return token;
+        }
+    }
+
+    //A table holding every token, looked up in token order
+    @State(Scope.Thread)
+    public static class Filled {
+        Counter counter;
+        String[] tokens;
+        int next;
+
+        @Setup(Level.Trial)
+        public void fill(Implementation implementation, Workload workload) {
+            counter = Tables.counter(implementation.impl);
+            tokens = workload.tokens;
+            for (String token : tokens) {
+                counter.increment(token, 1);
+            }
+        }
+
+        String nextToken() {
+            String token = tokens[next];
+            if (++next == tokens.length) {
+                next = 0;
+            }
+            return token;
+        }
+    }
+
+    //The distinct tokens in a BSSymbolTable, searched in each mode
+    @State(Scope.Thread)
+    public static class Frozen {
+        @Param({"BINARY", "HINTED", "EYTZINGER"})
+        public String search;
+
+        Lookup lookup;
+        String[] tokens;
+        int next;
+
+        @Setup(Level.Trial)
+        public void freeze(Workload workload) {
+            tokens = workload.tokens;
+            lookup = Tables.lookup(new TreeSet<String>(Arrays.asList(tokens)).toArray(new String[0]), search);
+        }
+
+        String nextToken() {
+            String token = tokens[next];
+            if (++next == tokens.length) {
+                next = 0;
+            }
+            return token;
+        }
+    }
+
+    //Every token in a table that answers prefix queries, asked for each two letter prefix of the tokens
+    @State(Scope.Thread)
+    public static class Prefixes {
+        @Param({"tst", "rb"})
+        public String index;
+
+        PrefixIndex table;
+        String[] prefixes;
+
+        @Setup(Level.Trial)
+        public void build(Workload workload) {
+            table = Tables.prefixIndex(index, workload.tokens);
+            TreeSet<String> distinct = new TreeSet<String>();
+            for (String token : workload.tokens) {
+                if (token.length() >= 2) {
+                    distinct.add(token.substring(0, 2));
+                }
+            }
+            prefixes = distinct.toArray(new String[0]);
+        }
+    }
+
+
+    /**********
+     * Benchmarks
+     **********/
+
+    @Benchmark
+    public void put(Empty state) {
+        state.counter.put(state.nextToken(), 1);
+    }
+
+    @Benchmark
+    public int increment(Empty state) {
+        return state.counter.increment(state.nextToken(), 1);
+    }
+
+    @Benchmark
+    public int get(Filled state) {
+        return state.counter.count(state.nextToken());
+    }
+
+    //One operation is a walk over every key
+    @Benchmark
+    public void keys(Filled state, Blackhole blackhole) {
+        for (String key : state.counter.keys()) {
+            blackhole.consume(key);
+        }
+    }
+
+    @Benchmark
+    public int search(Frozen state) {
+        return state.lookup.get(state.nextToken());
+    }
+
+    //One operation is a query for every prefix
+    @Benchmark
+    public void prefix(Prefixes state, Blackhole blackhole) {
+        for (String prefix : state.prefixes) {
+            for (String key : state.table.keysWithPrefix(prefix)) {
+                blackhole.consume(key);
+            }
+        }
+    }
+
+
+    /**********
+     * Synthetic Workloads
+     **********/
+
+    //Draw count keys uniformly from keyCount distinct keys
+    static String[] uniform(int count, int keyCount, Random random) {
+        String[] tokens = new String[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = "key" + random.nextInt(keyCount);
+        }
+        return tokens;
+    }
+
+    //Draw count keys from keyCount distinct keys, where the key of rank r has frequency proportional to 1/r
+    static String[] zipf(int count, int keyCount, Random random) {
+        double[] cumulative = new double[keyCount];
+        double total = 0;
+        for (int r = 0; r < keyCount; r++) {
+            total += 1.0 / (r + 1);
+            cumulative[r] = total;
+        }
+
+        String[] tokens = new String[count];
+        for (int i = 0; i < count; i++) {
+            int r = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            if (r < 0) {
+                r = -r - 1;
+            }
+            tokens[i] = "key" + r;
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,49 @@
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ Reaches the default package factories in BenchmarkTables by reflection, once per fixture
+ The tables it returns are called directly, so no reflection is left inside a measured method
+ */
+final class Tables {
+    private static final Class<?> FLAT;
+    static {
+        try {
+            FLAT = Class.forName("BenchmarkTables");
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Tables() {
+    }
+
+    private static Object call(String name, Class<?>[] types, Object... args) {
+        try {
+            Method method = FLAT.getMethod(name, types);
+            return method.invoke(null, args);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(name + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkTables." + name + " is missing", e);
+        }
+    }
+
+    static Counter counter(String impl) {
+        return (Counter) call("counter", new Class<?>[] {String.class}, impl);
+    }
+
+    static Lookup lookup(String[] vocabulary, String search) {
+        return (Lookup) call("lookup", new Class<?>[] {String[].class, String.class}, vocabulary, search);
+    }
+
+    static PrefixIndex prefixIndex(String impl, String[] tokens) {
+        return (PrefixIndex) call("prefixIndex", new Class<?>[] {String.class, String[].class}, impl, tokens);
+    }
+
+    static String[] readWords(String fileName) {
+        return (String[]) call("readWords", new Class<?>[] {String.class}, fileName);
+    }
+}